@@ -0,0 +1,121 @@
+package petshelter;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class Adopter {
+    private int id;
+    private final String name;
+    private volatile String phone;
+    // "species:name" identifiers in adoption order; a set, so adding and removing one is O(1).
+    private final Set<String> adoptedPetNames;
+    private final int keyHash;
+    private final boolean frozen;
+
+    public Adopter(String name, String phone) {
+        this.name = name;
+        this.phone = phone;
+        this.adoptedPetNames = Collections.synchronizedSet(new LinkedHashSet<>());
+        this.keyHash = KeyIndex.hashIgnoreCase(name);
+        this.frozen = false;
+    }
+
+    private Adopter(Adopter source) {
+        this.id = source.id;
+        this.name = source.name;
+        this.phone = source.phone;
+        this.adoptedPetNames = Collections.unmodifiableSet(new LinkedHashSet<>(source.getAdoptedPetNames()));
+        this.keyHash = source.keyHash;
+        this.frozen = true;
+    }
+
+    public static Adopter fromFileString(String line) {
+        return new RecordCodec().decodeAdopter(line, 0, line.length());
+    }
+
+    // Assigned by ShelterManager when the adopter is added; 0 until then.
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        checkMutable();
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    void setPhone(String phone) {
+        checkMutable();
+        this.phone = phone;
+    }
+
+    // A copy in adoption order; ShelterManager keeps the list in step with its adoption index.
+    public List<String> getAdoptedPetNames() {
+        synchronized (adoptedPetNames) {
+            return List.copyOf(adoptedPetNames);
+        }
+    }
+
+    void addAdoptedPet(Pet pet) {
+        addAdoptedPetName(pet.getSpecies() + ":" + pet.getName());
+    }
+
+    // For loaders, which read the identifiers before the pets exist.
+    void addAdoptedPetName(String petIdentifier) {
+        checkMutable();
+        adoptedPetNames.add(petIdentifier);
+    }
+
+    void removeAdoptedPet(Pet pet) {
+        checkMutable();
+        String petIdentifier = pet.getSpecies() + ":" + pet.getName();
+        adoptedPetNames.remove(petIdentifier);
+    }
+
+    // An immutable copy for snapshots; its setters throw.
+    Adopter freeze() {
+        return frozen ? this : new Adopter(this);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) throw new UnsupportedOperationException(name + " is a snapshot copy; update it through ShelterManager");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Name: %s, Phone: %s, Adopted Pets: %d", name, phone, adoptedPetNames.size());
+    }
+
+    public String toFileString() {
+        StringBuilder line = new StringBuilder();
+        new RecordCodec().encodeAdopter(this, line);
+        return line.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Adopter adopter = (Adopter) o;
+        return keyHash == adopter.keyHash && (name == null ? adopter.name == null : name.equalsIgnoreCase(adopter.name));
+    }
+
+    // Cached at construction; case-insensitive like equals, and allocation-free.
+    @Override
+    public int hashCode() {
+        return keyHash;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package petshelter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Both directions of the adoption relation, keyed by pet and adopter IDs.
+public class AdoptionIndex {
+    private final Map<Integer, Integer> adopterByPet = new HashMap<>();
+    private final Map<Integer, Set<Integer>> petsByAdopter = new HashMap<>();
+
+    // Moves the pet to the adopter if it was linked elsewhere; returns false if the link already existed.
+    public boolean link(int petId, int adopterId) {
+        Integer previous = adopterByPet.put(petId, adopterId);
+        if (previous != null) {
+            if (previous == adopterId) return false;
+            removePet(previous, petId);
+        }
+        petsByAdopter.computeIfAbsent(adopterId, k -> new LinkedHashSet<>()).add(petId);
+        return true;
+    }
+
+    // Returns the adopter the pet was linked to, or 0.
+    public int unlinkPet(int petId) {
+        Integer adopterId = adopterByPet.remove(petId);
+        if (adopterId == null) return 0;
+        removePet(adopterId, petId);
+        return adopterId;
+    }
+
+    // Returns the pets the adopter was linked to, in adoption order.
+    public Set<Integer> unlinkAdopter(int adopterId) {
+        Set<Integer> petIds = petsByAdopter.remove(adopterId);
+        if (petIds == null) return Collections.emptySet();
+        for (int petId : petIds) {
+            adopterByPet.remove(petId);
+        }
+        return petIds;
+    }
+
+    public int adopterOf(int petId) {
+        Integer adopterId = adopterByPet.get(petId);
+        return adopterId == null ? 0 : adopterId;
+    }
+
+    public Set<Integer> petsOf(int adopterId) {
+        Set<Integer> petIds = petsByAdopter.get(adopterId);
+        return petIds == null ? Collections.emptySet() : Collections.unmodifiableSet(petIds);
+    }
+
+    public int size() {
+        return adopterByPet.size();
+    }
+
+    private void removePet(int adopterId, int petId) {
+        Set<Integer> petIds = petsByAdopter.get(adopterId);
+        if (petIds != null && petIds.remove(petId) && petIds.isEmpty()) {
+            petsByAdopter.remove(adopterId);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package petshelter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+// Pets grouped by age. Buckets are keyed sparsely, so any int age costs one bucket however far it is from the rest.
+public class AgeIndex {
+    public static final Comparator<Pet> SPECIES_THEN_NAME = Comparator
+            .comparing(Pet::getSpecies, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Pet::getName, String.CASE_INSENSITIVE_ORDER);
+
+    private final TreeMap<Integer, TreeSet<Pet>> buckets = new TreeMap<>();
+    private int size;
+
+    public void add(Pet pet) {
+        if (buckets.computeIfAbsent(pet.getAge(), k -> new TreeSet<>(SPECIES_THEN_NAME)).add(pet)) {
+            size++;
+        }
+    }
+
+    public void remove(Pet pet) {
+        TreeSet<Pet> bucket = buckets.get(pet.getAge());
+        if (bucket != null && bucket.remove(pet)) {
+            size--;
+            if (bucket.isEmpty()) {
+                buckets.remove(pet.getAge());
+            }
+        }
+    }
+
+    // For a stored pet replaced by its updated copy; the age may differ.
+    public void replace(Pet pet, Pet updated) {
+        remove(pet);
+        add(updated);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Pet> sorted(boolean ascending) {
+        List<Pet> result = new ArrayList<>(size);
+        for (TreeSet<Pet> bucket : (ascending ? buckets : buckets.descendingMap()).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    // Walks the pets aged minAge to maxAge in sorted(ascending) order until the visitor returns false.
+    public void visit(boolean ascending, int minAge, int maxAge, Predicate<Pet> visitor) {
+        if (minAge > maxAge) return;
+        NavigableMap<Integer, TreeSet<Pet>> range = buckets.subMap(minAge, true, maxAge, true);
+        for (TreeSet<Pet> bucket : (ascending ? range : range.descendingMap()).values()) {
+            for (Pet pet : bucket) {
+                if (!visitor.test(pet)) return;
+            }
+        }
+    }
+}
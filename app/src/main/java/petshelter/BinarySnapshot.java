@@ -0,0 +1,298 @@
+package petshelter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Layout: header, dictionary refs, pet records, adopter records, adopted-pet refs, UTF-8 string heap.
+// A string ref is (offset, length) into the heap; offset -1 encodes null.
+// Version 2 added pet, adopter and adopted-by IDs; version 1 files load with every ID 0.
+public class BinarySnapshot {
+    private static final int MAGIC = 0x53484C54;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+    private static final int REF_BYTES = 8;
+    private static final int V1_PET_RECORD_BYTES = 12 + 2 * REF_BYTES;
+    private static final int V1_ADOPTER_RECORD_BYTES = 8 + 2 * REF_BYTES;
+    private static final int PET_RECORD_BYTES = 20 + 2 * REF_BYTES;
+    private static final int ADOPTER_RECORD_BYTES = 12 + 2 * REF_BYTES;
+
+    private final int checkpoint;
+    private final int[] petIds;
+    private final int[] petAdopterIds;
+    private final int[] adopterIds;
+    private final String[] species;
+    private final String[] names;
+    private final int[] ages;
+    private final String[] healthStatuses;
+    private final String[] petAdopters;
+    private final String[] adopterNames;
+    private final String[] phones;
+    private final String[][] adoptedPets;
+
+    private BinarySnapshot(int checkpoint, int petCount, int adopterCount) {
+        this.checkpoint = checkpoint;
+        this.petIds = new int[petCount];
+        this.petAdopterIds = new int[petCount];
+        this.adopterIds = new int[adopterCount];
+        this.species = new String[petCount];
+        this.names = new String[petCount];
+        this.ages = new int[petCount];
+        this.healthStatuses = new String[petCount];
+        this.petAdopters = new String[petCount];
+        this.adopterNames = new String[adopterCount];
+        this.phones = new String[adopterCount];
+        this.adoptedPets = new String[adopterCount][];
+    }
+
+    public static BinarySnapshot capture(Iterable<Pet> pets, int petCount, Iterable<Adopter> adopters, int adopterCount, int checkpoint) {
+        BinarySnapshot snapshot = new BinarySnapshot(checkpoint, petCount, adopterCount);
+        int i = 0;
+        for (Pet pet : pets) {
+            snapshot.petIds[i] = pet.getId();
+            snapshot.petAdopterIds[i] = pet.getAdopterId();
+            snapshot.species[i] = pet.getSpecies();
+            snapshot.names[i] = pet.getName();
+            snapshot.ages[i] = pet.getAge();
+            snapshot.healthStatuses[i] = pet.getHealthStatus();
+            snapshot.petAdopters[i] = pet.getAdopterName();
+            i++;
+        }
+        i = 0;
+        for (Adopter adopter : adopters) {
+            snapshot.adopterIds[i] = adopter.getId();
+            snapshot.adopterNames[i] = adopter.getName();
+            snapshot.phones[i] = adopter.getPhone();
+            snapshot.adoptedPets[i] = adopter.getAdoptedPetNames().toArray(new String[0]);
+            i++;
+        }
+        return snapshot;
+    }
+
+    public int getCheckpoint() {
+        return checkpoint;
+    }
+
+    public List<Pet> getPets() {
+        List<Pet> result = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            Pet pet = new Pet(species[i], names[i], ages[i], healthStatuses[i]);
+            pet.setId(petIds[i]);
+            pet.setAdopterName(petAdopters[i]);
+            pet.setAdopterId(petAdopterIds[i]);
+            result.add(pet);
+        }
+        return result;
+    }
+
+    public List<Adopter> getAdopters() {
+        List<Adopter> result = new ArrayList<>(adopterNames.length);
+        for (int i = 0; i < adopterNames.length; i++) {
+            Adopter adopter = new Adopter(adopterNames[i], phones[i]);
+            adopter.setId(adopterIds[i]);
+            for (String petIdentifier : adoptedPets[i]) {
+                adopter.addAdoptedPetName(petIdentifier);
+            }
+            result.add(adopter);
+        }
+        return result;
+    }
+
+    // Writes to a temp file, forces it to disk and renames it over the target; returns the size in bytes.
+    public long writeTo(File target) throws IOException {
+        StringHeap heap = new StringHeap();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> dictionaryEntries = new ArrayList<>();
+        int petCount = names.length;
+        int adopterCount = adopterNames.length;
+        int refCount = 0;
+        for (String[] refs : adoptedPets) {
+            refCount += refs.length;
+        }
+
+        ByteBuffer pets = ByteBuffer.allocate(petCount * PET_RECORD_BYTES);
+        for (int i = 0; i < petCount; i++) {
+            pets.putInt(code(dictionary, dictionaryEntries, species[i]));
+            pets.putInt(code(dictionary, dictionaryEntries, healthStatuses[i]));
+            pets.putInt(ages[i]);
+            pets.putInt(petIds[i]);
+            pets.putInt(petAdopterIds[i]);
+            heap.putRef(pets, names[i]);
+            heap.putRef(pets, petAdopters[i]);
+        }
+
+        ByteBuffer adopters = ByteBuffer.allocate(adopterCount * ADOPTER_RECORD_BYTES);
+        ByteBuffer refs = ByteBuffer.allocate(refCount * REF_BYTES);
+        for (int i = 0; i < adopterCount; i++) {
+            adopters.putInt(adopterIds[i]);
+            heap.putRef(adopters, adopterNames[i]);
+            heap.putRef(adopters, phones[i]);
+            adopters.putInt(refs.position() / REF_BYTES);
+            adopters.putInt(adoptedPets[i].length);
+            for (String petIdentifier : adoptedPets[i]) {
+                heap.putRef(refs, petIdentifier);
+            }
+        }
+
+        ByteBuffer dictionaryRefs = ByteBuffer.allocate(dictionaryEntries.size() * REF_BYTES);
+        for (String entry : dictionaryEntries) {
+            heap.putRef(dictionaryRefs, entry);
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer[] sections = {dictionaryRefs, pets, adopters, refs, ByteBuffer.wrap(heap.bytes(), 0, heap.size())};
+        for (ByteBuffer section : sections) {
+            section.rewind();
+            crc.update(section.duplicate());
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(checkpoint)
+                .putInt(dictionaryEntries.size()).putInt(petCount).putInt(adopterCount).putInt(refCount)
+                .putInt(heap.size()).putLong(crc.getValue());
+        header.flip();
+
+        File temp = new File(target.getPath() + ".tmp");
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            written += writeFully(channel, header);
+            for (ByteBuffer section : sections) {
+                written += writeFully(channel, section);
+            }
+            channel.force(true);
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    public static BinarySnapshot read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a shelter snapshot");
+            }
+            int version = buffer.getInt(4);
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int petRecordBytes = version == 1 ? V1_PET_RECORD_BYTES : PET_RECORD_BYTES;
+            int adopterRecordBytes = version == 1 ? V1_ADOPTER_RECORD_BYTES : ADOPTER_RECORD_BYTES;
+            int idBytes = version == 1 ? 0 : 8;
+            int checkpoint = buffer.getInt(8);
+            int dictionaryCount = buffer.getInt(12);
+            int petCount = buffer.getInt(16);
+            int adopterCount = buffer.getInt(20);
+            int refCount = buffer.getInt(24);
+            int heapBytes = buffer.getInt(28);
+            long expectedCrc = buffer.getLong(32);
+
+            int dictionaryStart = HEADER_BYTES;
+            int petsStart = dictionaryStart + dictionaryCount * REF_BYTES;
+            int adoptersStart = petsStart + petCount * petRecordBytes;
+            int refsStart = adoptersStart + adopterCount * adopterRecordBytes;
+            int heapStart = refsStart + refCount * REF_BYTES;
+            if (heapStart + heapBytes != buffer.limit()) {
+                throw new IOException(file + " is truncated");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(HEADER_BYTES));
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException(file + " failed its checksum");
+            }
+
+            byte[] heap = new byte[heapBytes];
+            buffer.duplicate().position(heapStart).get(heap);
+
+            String[] dictionary = new String[dictionaryCount];
+            for (int i = 0; i < dictionaryCount; i++) {
+                dictionary[i] = readRef(buffer, dictionaryStart + i * REF_BYTES, heap);
+            }
+
+            BinarySnapshot snapshot = new BinarySnapshot(checkpoint, petCount, adopterCount);
+            for (int i = 0; i < petCount; i++) {
+                int at = petsStart + i * petRecordBytes;
+                snapshot.species[i] = dictionary[buffer.getInt(at)];
+                snapshot.healthStatuses[i] = dictionary[buffer.getInt(at + 4)];
+                snapshot.ages[i] = buffer.getInt(at + 8);
+                if (idBytes > 0) {
+                    snapshot.petIds[i] = buffer.getInt(at + 12);
+                    snapshot.petAdopterIds[i] = buffer.getInt(at + 16);
+                }
+                snapshot.names[i] = readRef(buffer, at + 12 + idBytes, heap);
+                snapshot.petAdopters[i] = readRef(buffer, at + 12 + idBytes + REF_BYTES, heap);
+            }
+            for (int i = 0; i < adopterCount; i++) {
+                int at = adoptersStart + i * adopterRecordBytes;
+                if (idBytes > 0) {
+                    snapshot.adopterIds[i] = buffer.getInt(at);
+                    at += 4;
+                }
+                snapshot.adopterNames[i] = readRef(buffer, at, heap);
+                snapshot.phones[i] = readRef(buffer, at + REF_BYTES, heap);
+                int firstRef = buffer.getInt(at + 2 * REF_BYTES);
+                String[] refs = new String[buffer.getInt(at + 2 * REF_BYTES + 4)];
+                for (int j = 0; j < refs.length; j++) {
+                    refs[j] = readRef(buffer, refsStart + (firstRef + j) * REF_BYTES, heap);
+                }
+                snapshot.adoptedPets[i] = refs;
+            }
+            return snapshot;
+        }
+    }
+
+    private static String readRef(ByteBuffer buffer, int at, byte[] heap) {
+        int offset = buffer.getInt(at);
+        return offset < 0 ? null : new String(heap, offset, buffer.getInt(at + 4), StandardCharsets.UTF_8);
+    }
+
+    private static int code(Map<String, Integer> dictionary, List<String> entries, String value) {
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = entries.size();
+            dictionary.put(value, code);
+            entries.add(value);
+        }
+        return code;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.rewind();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    private static final class StringHeap {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        void putRef(ByteBuffer target, String value) {
+            if (value == null) {
+                target.putInt(-1).putInt(0);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            target.putInt(bytes.size()).putInt(encoded.length);
+            bytes.write(encoded, 0, encoded.length);
+        }
+
+        byte[] bytes() {
+            return bytes.toByteArray();
+        }
+
+        int size() {
+            return bytes.size();
+        }
+    }
+}
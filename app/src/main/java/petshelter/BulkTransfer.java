@@ -0,0 +1,211 @@
+package petshelter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Streams pets into and out of files in batches, so a partner's intake file is never held in memory at once.
+public final class BulkTransfer {
+    public static final int DEFAULT_BATCH_SIZE = 2_000;
+    private static final int EXPORT_PROGRESS_EVERY = 1_000;
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    public interface Progress {
+        // done and total are bytes for an import and records for an export.
+        void update(long done, long total);
+
+        // Checked between batches; work already applied stays applied.
+        default boolean isCancelled() {
+            return Thread.currentThread().isInterrupted();
+        }
+    }
+
+    public static final class Result {
+        private final long processed;
+        private final long added;
+        private final long duplicates;
+        private final List<CsvLoader.ParseError> errors;
+        private final boolean cancelled;
+
+        Result(long processed, long added, long duplicates, List<CsvLoader.ParseError> errors, boolean cancelled) {
+            this.processed = processed;
+            this.added = added;
+            this.duplicates = duplicates;
+            this.errors = errors;
+            this.cancelled = cancelled;
+        }
+
+        // Records read (import) or written (export).
+        public long getProcessed() {
+            return processed;
+        }
+
+        public long getAdded() {
+            return added;
+        }
+
+        // Records skipped because their species and name were already taken; always 0 for an export.
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        public List<CsvLoader.ParseError> getErrors() {
+            return errors;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private BulkTransfer() {
+    }
+
+    // Each line is a pets.txt record. Intake pets arrive available: the partner's IDs and adopter are dropped.
+    // Every batch is added under one write lock, so listeners see one event batch per batch; a pet whose
+    // species and name are already taken, in the shelter or earlier in the file, is counted as a duplicate.
+    public static Result importPets(ShelterManager manager, File file, int batchSize, Progress progress) throws IOException {
+        ShelterMetrics metrics = manager.getMetrics();
+        long start = metrics.start(ShelterMetrics.Operation.IMPORT_PETS);
+        long total = file.length();
+        long processed = 0;
+        long added = 0;
+        long duplicates = 0;
+        long lineNumber = 0;
+        boolean cancelled = false;
+        List<CsvLoader.ParseError> errors = new ArrayList<>();
+        List<Pet> batch = new ArrayList<>(batchSize);
+        RecordCodec codec = new RecordCodec();
+        try (CountingInputStream counted = new CountingInputStream(new FileInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(counted, Charset.defaultCharset()), 64 * 1024)) {
+            String line;
+            while (true) {
+                line = reader.readLine();
+                if (line != null) {
+                    lineNumber++;
+                    if (line.isEmpty()) continue;
+                    try {
+                        Pet parsed = codec.decodePet(line, 0, line.length());
+                        if (parsed == null) {
+                            errors.add(new CsvLoader.ParseError(file.getName(), lineNumber, "missing fields"));
+                        } else {
+                            batch.add(new Pet(parsed.getSpecies(), parsed.getName(), parsed.getAge(), parsed.getHealthStatus()));
+                        }
+                    } catch (RuntimeException e) {
+                        errors.add(new CsvLoader.ParseError(file.getName(), lineNumber, e.toString()));
+                    }
+                }
+                if (batch.size() >= batchSize || (line == null && !batch.isEmpty())) {
+                    if (progress.isCancelled()) {
+                        cancelled = true;
+                        break;
+                    }
+                    int batchAdded = manager.addPets(batch);
+                    added += batchAdded;
+                    duplicates += batch.size() - batchAdded;
+                    processed += batch.size();
+                    batch.clear();
+                    progress.update(line == null ? total : counted.count, total);
+                }
+                if (line == null) break;
+            }
+        } finally {
+            metrics.recordsRead(processed);
+            metrics.recordsRejected(duplicates + errors.size());
+            metrics.stop(ShelterMetrics.Operation.IMPORT_PETS, start);
+        }
+        for (CsvLoader.ParseError error : errors) {
+            System.err.println("Skipped invalid record at " + error);
+        }
+        return new Result(processed, added, duplicates, Collections.unmodifiableList(errors), cancelled);
+    }
+
+    // Writes to a temp file renamed over target at the end; a cancelled export leaves target untouched.
+    public static Result exportPets(List<Pet> pets, File target, Format format, Progress progress) throws IOException {
+        File temp = new File(target.getPath() + ".tmp");
+        RecordCodec codec = new RecordCodec();
+        StringBuilder line = new StringBuilder(160);
+        long written = 0;
+        boolean cancelled = false;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), Charset.defaultCharset()), 64 * 1024)) {
+            if (format == Format.JSON) out.write("[");
+            for (Pet pet : pets) {
+                if (written % EXPORT_PROGRESS_EVERY == 0) {
+                    if (progress.isCancelled()) {
+                        cancelled = true;
+                        break;
+                    }
+                    progress.update(written, pets.size());
+                }
+                line.setLength(0);
+                if (format == Format.JSON) {
+                    line.append(written == 0 ? "\n" : ",\n");
+                    Json.writePet(pet, line);
+                } else {
+                    codec.encodePet(pet, line);
+                    line.append(System.lineSeparator());
+                }
+                out.append(line);
+                written++;
+            }
+            if (format == Format.JSON) out.write("\n]\n");
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        if (cancelled) {
+            Files.deleteIfExists(temp.toPath());
+        } else {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            progress.update(written, pets.size());
+        }
+        return new Result(written, written, 0, Collections.emptyList(), cancelled);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package petshelter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Reads a line-per-record text file in line-aligned chunks that are parsed in parallel and merged in file order.
+public class CsvLoader {
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    private static final long MAX_CHUNK_BYTES = 1 << 28;
+    private static final int BOUNDARY_SCAN_BYTES = 4096;
+
+    public interface LineParser<T> {
+        T parse(RecordCodec codec, CharSequence text, int start, int end);
+    }
+
+    public static final class ParseError {
+        private final String fileName;
+        private final long line;
+        private final String message;
+
+        ParseError(String fileName, long line, String message) {
+            this.fileName = fileName;
+            this.line = line;
+            this.message = message;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return fileName + ":" + line + ": " + message;
+        }
+    }
+
+    public static final class Result<T> {
+        private final List<T> records;
+        private final List<ParseError> errors;
+
+        Result(List<T> records, List<ParseError> errors) {
+            this.records = records;
+            this.errors = errors;
+        }
+
+        public List<T> getRecords() {
+            return records;
+        }
+
+        public List<ParseError> getErrors() {
+            return errors;
+        }
+    }
+
+    public static <T> Result<T> load(File file, LineParser<T> parser, boolean parallel, ForkJoinPool pool) throws IOException {
+        if (!file.exists()) {
+            return new Result<>(Collections.emptyList(), Collections.emptyList());
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, parallel ? pool.getParallelism() * 4 : 1);
+            ChunkTask<T> task = new ChunkTask<>(file.getName(), channel, bounds, 0, bounds.length - 1, parser);
+            List<Chunk<T>> chunks;
+            try {
+                chunks = parallel ? pool.invoke(task) : task.compute();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            List<T> records = new ArrayList<>();
+            List<ParseError> errors = new ArrayList<>();
+            long firstLine = 1;
+            for (Chunk<T> chunk : chunks) {
+                records.addAll(chunk.records);
+                for (ParseError error : chunk.errors) {
+                    errors.add(new ParseError(error.fileName, firstLine + error.line - 1, error.message));
+                }
+                firstLine += chunk.lineCount;
+            }
+            return new Result<>(records, errors);
+        }
+    }
+
+    private static long[] chunkBounds(FileChannel channel, int maxChunks) throws IOException {
+        long size = channel.size();
+        int chunks = (int) Math.max((size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES, Math.min(maxChunks, size / MIN_CHUNK_BYTES));
+        chunks = Math.max(1, chunks);
+        long[] bounds = new long[chunks + 1];
+        bounds[chunks] = size;
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+        for (int i = 1; i < chunks; i++) {
+            long position = Math.max(bounds[i - 1], size * i / chunks);
+            bounds[i] = nextLineStart(channel, position, size, scan);
+        }
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer scan) throws IOException {
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static final class Chunk<T> {
+        final List<T> records = new ArrayList<>();
+        final List<ParseError> errors = new ArrayList<>();
+        long lineCount;
+    }
+
+    private static final class ChunkTask<T> extends RecursiveTask<List<Chunk<T>>> {
+        private final String fileName;
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final LineParser<T> parser;
+
+        ChunkTask(String fileName, FileChannel channel, long[] bounds, int from, int to, LineParser<T> parser) {
+            this.fileName = fileName;
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parser = parser;
+        }
+
+        @Override
+        protected List<Chunk<T>> compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunkTask<T> left = new ChunkTask<>(fileName, channel, bounds, from, middle, parser);
+                ChunkTask<T> right = new ChunkTask<>(fileName, channel, bounds, middle, to, parser);
+                right.fork();
+                List<Chunk<T>> result = new ArrayList<>(left.compute());
+                result.addAll(right.join());
+                return result;
+            }
+            List<Chunk<T>> result = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                result.add(parseChunk(bounds[i], bounds[i + 1]));
+            }
+            return result;
+        }
+
+        private Chunk<T> parseChunk(long start, long end) {
+            ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            try {
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes, start + bytes.position()) < 0) break;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bytes.flip();
+            CharBuffer text = Charset.defaultCharset().decode(bytes);
+            int length = text.remaining();
+
+            RecordCodec codec = new RecordCodec();
+            Chunk<T> chunk = new Chunk<>();
+            int lineStart = 0;
+            while (lineStart < length) {
+                int lineEnd = lineStart;
+                while (lineEnd < length && text.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > lineStart && text.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                chunk.lineCount++;
+                if (contentEnd > lineStart) {
+                    try {
+                        T record = parser.parse(codec, text, lineStart, contentEnd);
+                        if (record == null) {
+                            chunk.errors.add(new ParseError(fileName, chunk.lineCount, "missing fields"));
+                        } else {
+                            chunk.records.add(record);
+                        }
+                    } catch (RuntimeException e) {
+                        chunk.errors.add(new ParseError(fileName, chunk.lineCount, e.toString()));
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+    }
+}
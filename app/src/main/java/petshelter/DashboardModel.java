@@ -0,0 +1,129 @@
+package petshelter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// The dashboard's counts, seeded once from a snapshot and then moved by each event, so a batch costs O(log n) per
+// event instead of a copy of every aggregate. Pets are kept by ID, so the record an event carries replaces the
+// previous one and only the difference is counted; applying an event the seed already covered changes nothing.
+// The adopter ranking is a sorted set that is reordered one entry at a time as adoptions come and go.
+final class DashboardModel {
+    private final Map<Integer, Pet> pets = new HashMap<>();
+    private final Map<Integer, String> adopterNames = new HashMap<>();
+    private final Map<String, Integer> speciesCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Integer> healthCounts = new TreeMap<>();
+    private final Map<Integer, Integer> ageCounts = new TreeMap<>();
+    private final Map<Integer, Integer> adoptions = new HashMap<>();
+    // Adopter IDs, most adoptions first, then by ID.
+    private final TreeSet<Integer> ranking = new TreeSet<>(
+            Comparator.comparing((Integer id) -> adoptions.get(id)).reversed().thenComparing(Comparator.naturalOrder()));
+    private int adoptedCount;
+
+    DashboardModel(ShelterSnapshot snapshot) {
+        for (Pet pet : snapshot.getPets()) {
+            put(pet);
+        }
+        for (Adopter adopter : snapshot.getAdopters()) {
+            adopterNames.put(adopter.getId(), adopter.getName());
+        }
+    }
+
+    void apply(ShelterEvent event) {
+        switch (event.getType()) {
+            case PET_ADDED:
+            case PET_UPDATED:
+            case ADOPTION_LINKED:
+            case ADOPTION_UNLINKED:
+                put(event.getPet());
+                break;
+            case PET_REMOVED:
+                Pet removed = pets.remove(event.getPet().getId());
+                if (removed != null) count(removed, -1);
+                break;
+            case ADOPTER_ADDED:
+            case ADOPTER_UPDATED:
+                adopterNames.put(event.getAdopter().getId(), event.getAdopter().getName());
+                break;
+            case ADOPTER_REMOVED:
+                adopterNames.remove(event.getAdopter().getId());
+                break;
+        }
+    }
+
+    int getPetCount() {
+        return pets.size();
+    }
+
+    int getAdoptedCount() {
+        return adoptedCount;
+    }
+
+    int getAvailableCount() {
+        return pets.size() - adoptedCount;
+    }
+
+    int getAdopterCount() {
+        return adopterNames.size();
+    }
+
+    int getAdoptersWithPets() {
+        return adoptions.size();
+    }
+
+    Map<String, Integer> getSpeciesCounts() {
+        return Collections.unmodifiableMap(speciesCounts);
+    }
+
+    Map<String, Integer> getHealthStatusCounts() {
+        return Collections.unmodifiableMap(healthCounts);
+    }
+
+    Map<Integer, Integer> getAgeHistogram() {
+        return Collections.unmodifiableMap(ageCounts);
+    }
+
+    // The adopters with the most pets, by name, with their counts; O(limit log n).
+    List<Map.Entry<String, Integer>> topAdopters(int limit) {
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(Math.min(limit, ranking.size()));
+        Iterator<Integer> ids = ranking.iterator();
+        while (result.size() < limit && ids.hasNext()) {
+            int id = ids.next();
+            String name = adopterNames.get(id);
+            if (name != null) {
+                result.add(Map.entry(name, adoptions.get(id)));
+            }
+        }
+        return result;
+    }
+
+    private void put(Pet pet) {
+        Pet previous = pets.put(pet.getId(), pet);
+        if (previous == pet) return;
+        if (previous != null) count(previous, -1);
+        count(pet, 1);
+    }
+
+    private void count(Pet pet, int delta) {
+        add(speciesCounts, pet.getSpecies(), delta);
+        if (pet.getHealthStatus() != null) add(healthCounts, pet.getHealthStatus(), delta);
+        add(ageCounts, pet.getAge(), delta);
+        if (pet.getAdopterName() != null && !pet.getAdopterName().isEmpty()) adoptedCount += delta;
+        if (pet.getAdopterId() != 0) {
+            int id = pet.getAdopterId();
+            if (adoptions.containsKey(id)) ranking.remove(id);
+            add(adoptions, id, delta);
+            if (adoptions.containsKey(id)) ranking.add(id);
+        }
+    }
+
+    private static <K> void add(Map<K, Integer> counts, K key, int delta) {
+        counts.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+}
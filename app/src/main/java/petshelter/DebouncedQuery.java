@@ -0,0 +1,64 @@
+package petshelter;
+
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Runs the last query of a burst off the EDT and hands its result back on the EDT.
+// Starting a query cancels the one in flight, whose result is then dropped. Must be used from the EDT.
+public class DebouncedQuery<T> {
+    private final Timer timer;
+    private Supplier<List<T>> pendingQuery;
+    private Consumer<List<T>> pendingConsumer;
+    private SwingWorker<List<T>, Void> running;
+
+    public DebouncedQuery(int delayMillis) {
+        timer = new Timer(delayMillis, e -> start());
+        timer.setRepeats(false);
+    }
+
+    public void schedule(Supplier<List<T>> query, Consumer<List<T>> onResult) {
+        pendingQuery = query;
+        pendingConsumer = onResult;
+        timer.restart();
+    }
+
+    public void runNow(Supplier<List<T>> query, Consumer<List<T>> onResult) {
+        timer.stop();
+        pendingQuery = query;
+        pendingConsumer = onResult;
+        start();
+    }
+
+    private void start() {
+        if (running != null) {
+            running.cancel(true);
+        }
+        Supplier<List<T>> query = pendingQuery;
+        Consumer<List<T>> consumer = pendingConsumer;
+        running = new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                return query.get();
+            }
+
+            @Override
+            protected void done() {
+                if (running != this) return;
+                running = null;
+                try {
+                    consumer.accept(get());
+                } catch (CancellationException | InterruptedException e) {
+                    // Superseded by a newer query.
+                } catch (ExecutionException e) {
+                    System.err.println("Error running query: " + e.getCause().getMessage());
+                }
+            }
+        };
+        running.execute();
+    }
+}
@@ -0,0 +1,352 @@
+package petshelter;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class Journal implements Closeable {
+    private static final String SEGMENT_PREFIX = "shelter.journal.";
+    private static final String LOCK_FILE = "shelter.lock";
+    private static final Object ROTATE = new Object();
+
+    private final File directory;
+    private final int firstSegment;
+    private final int syncBatchSize;
+    private final long syncIntervalMillis;
+    private final Object lock = new Object();
+    private final Thread writerThread;
+    private final FileChannel lockChannel;
+
+    private List<Object> pending = new ArrayList<>();
+    private long appended;
+    private long durable;
+    private long recordsInSegment;
+    private int segment;
+    private boolean flushRequested;
+    private boolean closed;
+    private IOException failure;
+
+    // Holds a lock on the directory until closed, so a second journal there fails here instead of interleaving segments.
+    public Journal(File directory, int firstSegment, int syncBatchSize, long syncIntervalMillis) {
+        this.lockChannel = lockDirectory(directory);
+        this.directory = directory;
+        this.firstSegment = firstSegment;
+        this.segment = firstSegment;
+        this.syncBatchSize = Math.max(1, syncBatchSize);
+        this.syncIntervalMillis = Math.max(0, syncIntervalMillis);
+        this.writerThread = new Thread(this::writeLoop, "shelter-journal");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Called before the caller changes anything, so a journal that can no longer take records fails the change
+    // rather than leaving it applied but unrecorded. Records appended afterwards are always queued; a failure that
+    // happens after the reservation is reported by flush and by the next reserve.
+    public void reserve() {
+        synchronized (lock) {
+            if (closed) throw new IllegalStateException("Journal is closed");
+            if (failure != null) throw new UncheckedIOException("Journal failed, record not written", failure);
+        }
+    }
+
+    public void append(String... fields) {
+        String line = encode(fields);
+        synchronized (lock) {
+            if (closed) throw new IllegalStateException("Journal is closed");
+            pending.add(line);
+            appended++;
+            recordsInSegment++;
+            lock.notifyAll();
+        }
+    }
+
+    // Starts a new segment and returns its number; older segments hold everything appended so far.
+    public int rotate() {
+        synchronized (lock) {
+            pending.add(ROTATE);
+            segment++;
+            recordsInSegment = 0;
+            lock.notifyAll();
+            return segment;
+        }
+    }
+
+    public long recordsInCurrentSegment() {
+        synchronized (lock) {
+            return recordsInSegment;
+        }
+    }
+
+    // Blocks until every record appended so far has been forced to disk.
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            flushRequested = true;
+            lock.notifyAll();
+            while (durable < target && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while flushing journal");
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lockChannel.close();
+        }
+        synchronized (lock) {
+            if (failure != null) throw failure;
+        }
+    }
+
+    public void deleteSegmentsBefore(int firstKept) {
+        for (File file : listSegments(directory).headMap(firstKept).values()) {
+            if (!file.delete()) {
+                System.err.println("Could not delete journal segment " + file.getName());
+            }
+        }
+    }
+
+    // Replays segments from firstSegment on, stopping each segment at its first torn or corrupt record.
+    public static int replay(File directory, int firstSegment, Consumer<String[]> handler) {
+        int lastSegment = firstSegment - 1;
+        for (Map.Entry<Integer, File> entry : listSegments(directory).tailMap(firstSegment).entrySet()) {
+            lastSegment = entry.getKey();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(entry.getValue()), StandardCharsets.UTF_8))) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    String[] fields = decode(line);
+                    if (fields == null) {
+                        System.err.println("Journal " + entry.getValue().getName() + " truncated at line " + lineNumber);
+                        break;
+                    }
+                    handler.accept(fields);
+                }
+            } catch (IOException e) {
+                System.err.println("Error replaying journal: " + e.getMessage());
+            }
+        }
+        return lastSegment;
+    }
+
+    private void writeLoop() {
+        FileOutputStream out = null;
+        Writer writer = null;
+        int openSegment = firstSegment;
+        long unsynced = 0;
+        long lastSync = System.currentTimeMillis();
+        try {
+            while (true) {
+                List<Object> batch;
+                long batchEnd;
+                boolean forceNow;
+                boolean closing;
+                synchronized (lock) {
+                    while (pending.isEmpty() && !closed && !flushRequested) {
+                        long wait = unsynced > 0 ? syncIntervalMillis - (System.currentTimeMillis() - lastSync) : 0;
+                        if (unsynced > 0 && wait <= 0) break;
+                        lock.wait(Math.max(0, wait));
+                    }
+                    batch = pending;
+                    pending = new ArrayList<>();
+                    batchEnd = appended;
+                    forceNow = flushRequested;
+                    flushRequested = false;
+                    closing = closed;
+                }
+
+                for (Object record : batch) {
+                    if (record == ROTATE) {
+                        if (writer != null) {
+                            writer.flush();
+                            out.getChannel().force(false);
+                            writer.close();
+                            writer = null;
+                            unsynced = 0;
+                            lastSync = System.currentTimeMillis();
+                        }
+                        openSegment++;
+                        continue;
+                    }
+                    if (writer == null) {
+                        out = new FileOutputStream(segmentFile(directory, openSegment), true);
+                        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                    }
+                    writer.write((String) record);
+                    writer.write('\n');
+                    unsynced++;
+                }
+
+                long now = System.currentTimeMillis();
+                if (writer != null && unsynced > 0
+                        && (forceNow || closing || unsynced >= syncBatchSize || now - lastSync >= syncIntervalMillis)) {
+                    writer.flush();
+                    out.getChannel().force(false);
+                    unsynced = 0;
+                    lastSync = now;
+                }
+                if (unsynced == 0) {
+                    synchronized (lock) {
+                        durable = batchEnd;
+                        lock.notifyAll();
+                    }
+                }
+                if (closing) {
+                    synchronized (lock) {
+                        if (pending.isEmpty()) break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+                lock.notifyAll();
+            }
+            System.err.println("Error writing journal: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static FileChannel lockDirectory(File directory) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(new File(directory, LOCK_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock fileLock = channel.tryLock();
+            if (fileLock != null) return channel;
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal in this process; reported below like one held by another process.
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Could not lock journal directory " + directory, e);
+        }
+        closeQuietly(channel);
+        throw new IllegalStateException("Journal directory " + directory + " is in use by another shelter");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.err.println("Error closing journal lock: " + e.getMessage());
+        }
+    }
+
+    private static TreeMap<Integer, File> listSegments(File directory) {
+        TreeMap<Integer, File> segments = new TreeMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    segments.put(Integer.parseInt(file.getName().substring(SEGMENT_PREFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring unexpected journal file " + file.getName());
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static File segmentFile(File directory, int segment) {
+        return new File(directory, String.format("%s%06d", SEGMENT_PREFIX, segment));
+    }
+
+    static String encode(String... fields) {
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) payload.append('\t');
+            String field = fields[i];
+            if (field == null) {
+                payload.append("\\N");
+                continue;
+            }
+            for (int j = 0; j < field.length(); j++) {
+                char c = field.charAt(j);
+                switch (c) {
+                    case '\\': payload.append("\\\\"); break;
+                    case '\t': payload.append("\\t"); break;
+                    case '\n': payload.append("\\n"); break;
+                    case '\r': payload.append("\\r"); break;
+                    default: payload.append(c);
+                }
+            }
+        }
+        return String.format("%08x", checksum(payload.toString())) + '\t' + payload;
+    }
+
+    static String[] decode(String line) {
+        if (line.length() < 9 || line.charAt(8) != '\t') return null;
+        String payload = line.substring(9);
+        try {
+            if (Long.parseLong(line.substring(0, 8), 16) != checksum(payload)) return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isNull = false;
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (c == '\t') {
+                fields.add(isNull ? null : field.toString());
+                field.setLength(0);
+                isNull = false;
+            } else if (c == '\\' && i + 1 < payload.length()) {
+                char escaped = payload.charAt(++i);
+                switch (escaped) {
+                    case 't': field.append('\t'); break;
+                    case 'n': field.append('\n'); break;
+                    case 'r': field.append('\r'); break;
+                    case 'N': isNull = true; break;
+                    default: field.append(escaped);
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(isNull ? null : field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static long checksum(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,218 @@
+package petshelter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Just enough JSON for the HTTP API and exports: flat request objects in, records and escaped strings out.
+final class Json {
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    // Values are String, Long, Double, Boolean or null; nested objects and arrays are rejected.
+    static Map<String, Object> parseObject(String text) {
+        Json parser = new Json(text);
+        Map<String, Object> result = new LinkedHashMap<>();
+        parser.skipWhitespace();
+        parser.expect('{');
+        parser.skipWhitespace();
+        if (parser.peek() == '}') {
+            parser.pos++;
+        } else {
+            while (true) {
+                parser.skipWhitespace();
+                String key = parser.readString();
+                parser.skipWhitespace();
+                parser.expect(':');
+                parser.skipWhitespace();
+                result.put(key, parser.readValue());
+                parser.skipWhitespace();
+                if (parser.peek() == ',') {
+                    parser.pos++;
+                } else {
+                    parser.expect('}');
+                    break;
+                }
+            }
+        }
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("Unexpected trailing content");
+        }
+        return result;
+    }
+
+    static void writePet(Pet pet, Appendable out) throws IOException {
+        out.append("{\"id\":").append(String.valueOf(pet.getId())).append(",\"species\":");
+        writeString(out, pet.getSpecies());
+        out.append(",\"name\":");
+        writeString(out, pet.getName());
+        out.append(",\"age\":").append(String.valueOf(pet.getAge())).append(",\"healthStatus\":");
+        writeString(out, pet.getHealthStatus());
+        out.append(",\"adopterId\":").append(String.valueOf(pet.getAdopterId())).append(",\"adopterName\":");
+        writeString(out, pet.getAdopterName());
+        out.append('}');
+    }
+
+    static void writeAdopter(Adopter adopter, Appendable out) throws IOException {
+        out.append("{\"id\":").append(String.valueOf(adopter.getId())).append(",\"name\":");
+        writeString(out, adopter.getName());
+        out.append(",\"phone\":");
+        writeString(out, adopter.getPhone());
+        out.append('}');
+    }
+
+    static void writeString(Appendable out, String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private Object readValue() {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        }
+        if (text.startsWith("true", pos)) {
+            pos += 4;
+            return Boolean.TRUE;
+        }
+        if (text.startsWith("false", pos)) {
+            pos += 5;
+            return Boolean.FALSE;
+        }
+        if (text.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            return readNumber();
+        }
+        throw error("Unsupported value");
+    }
+
+    private Object readNumber() {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        String number = text.substring(start, pos);
+        try {
+            if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+                return Double.parseDouble(number);
+            }
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + number);
+        }
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            if (pos >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return out.toString();
+            }
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (pos >= text.length()) {
+                throw error("Unterminated escape");
+            }
+            char escaped = text.charAt(pos++);
+            switch (escaped) {
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    out.append(escaped);
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        return text.charAt(pos);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
@@ -0,0 +1,244 @@
+package petshelter;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+public class KeyIndex<T> implements Iterable<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Function<T, String> primaryKey;
+    private final Function<T, String> secondaryKey;
+    private Node<T>[] table;
+    private Node<T>[] slots;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int slotLimit;
+    private Node<T> head;
+    private Node<T> tail;
+    private int size;
+
+    public KeyIndex(Function<T, String> primaryKey, Function<T, String> secondaryKey) {
+        this.primaryKey = primaryKey;
+        this.secondaryKey = secondaryKey;
+        this.table = newTable(INITIAL_CAPACITY);
+        this.slots = newTable(INITIAL_CAPACITY);
+    }
+
+    public T get(String primary, String secondary) {
+        Node<T> node = findNode(primary, secondary);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKeyOf(T value) {
+        return findNode(primaryKey.apply(value), secondaryOf(value)) != null;
+    }
+
+    public int slotOf(T value) {
+        Node<T> node = findNode(primaryKey.apply(value), secondaryOf(value));
+        return node == null ? -1 : node.slot;
+    }
+
+    public T getBySlot(int slot) {
+        Node<T> node = slot >= 0 && slot < slotLimit ? slots[slot] : null;
+        return node == null ? null : node.value;
+    }
+
+    // Slots are dense row numbers for secondary indexes; a removed key's slot is reused.
+    public int slotLimit() {
+        return slotLimit;
+    }
+
+    public boolean add(T value) {
+        String primary = primaryKey.apply(value);
+        String secondary = secondaryOf(value);
+        int hash = hash(primary, secondary);
+        int bucket = hash & (table.length - 1);
+        for (Node<T> node = table[bucket]; node != null; node = node.next) {
+            if (node.hash == hash && matches(node.value, primary, secondary)) {
+                return false;
+            }
+        }
+
+        Node<T> node = new Node<>(value, hash, allocateSlot());
+        slots[node.slot] = node;
+        node.next = table[bucket];
+        table[bucket] = node;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.after = node;
+            node.before = tail;
+        }
+        tail = node;
+        if (++size > table.length - (table.length >>> 2)) {
+            resize();
+        }
+        return true;
+    }
+
+    // Puts value in place of the one with the same key, keeping its slot and position in iteration order.
+    public boolean replace(T value) {
+        Node<T> node = findNode(primaryKey.apply(value), secondaryOf(value));
+        if (node == null) return false;
+        node.value = value;
+        return true;
+    }
+
+    public T remove(String primary, String secondary) {
+        int hash = hash(primary, secondary);
+        int bucket = hash & (table.length - 1);
+        Node<T> previous = null;
+        for (Node<T> node = table[bucket]; node != null; previous = node, node = node.next) {
+            if (node.hash == hash && matches(node.value, primary, secondary)) {
+                if (previous == null) {
+                    table[bucket] = node.next;
+                } else {
+                    previous.next = node.next;
+                }
+                unlink(node);
+                releaseSlot(node.slot);
+                size--;
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    public T removeKeyOf(T value) {
+        return remove(primaryKey.apply(value), secondaryOf(value));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Node<T> next = head;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) throw new NoSuchElementException();
+                T value = next.value;
+                next = next.after;
+                return value;
+            }
+        };
+    }
+
+    // Every next link points at an older node, so a racing optimistic reader always reaches the end of a chain.
+    private Node<T> findNode(String primary, String secondary) {
+        int hash = hash(primary, secondary);
+        Node<T>[] current = table;
+        for (Node<T> node = current[hash & (current.length - 1)]; node != null; node = node.next) {
+            if (node.hash == hash && matches(node.value, primary, secondary)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(T value, String primary, String secondary) {
+        return equalsIgnoreCase(primaryKey.apply(value), primary) && equalsIgnoreCase(secondaryOf(value), secondary);
+    }
+
+    private String secondaryOf(T value) {
+        return secondaryKey == null ? null : secondaryKey.apply(value);
+    }
+
+    private void unlink(Node<T> node) {
+        if (node.before == null) {
+            head = node.after;
+        } else {
+            node.before.after = node.after;
+        }
+        if (node.after == null) {
+            tail = node.before;
+        } else {
+            node.after.before = node.before;
+        }
+        node.before = null;
+        node.after = null;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotLimit == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length << 1);
+        }
+        return slotLimit++;
+    }
+
+    private void releaseSlot(int slot) {
+        slots[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length << 1);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void resize() {
+        Node<T>[] resized = newTable(table.length << 1);
+        int mask = resized.length - 1;
+        for (Node<T> node = head; node != null; node = node.after) {
+            int bucket = node.hash & mask;
+            node.next = resized[bucket];
+            resized[bucket] = node;
+        }
+        table = resized;
+    }
+
+    private static <T> Node<T>[] newTable(int capacity) {
+        @SuppressWarnings("unchecked")
+        Node<T>[] table = (Node<T>[]) new Node<?>[capacity];
+        return table;
+    }
+
+    private static boolean equalsIgnoreCase(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+
+    // Case-folds the same way String.equalsIgnoreCase does, so equal keys always hash alike.
+    static int hash(String primary, String secondary) {
+        int h = hashIgnoreCase(primary) * 31 + hashIgnoreCase(secondary);
+        return h ^ (h >>> 16);
+    }
+
+    static int hashIgnoreCase(String s) {
+        if (s == null) return 0;
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+        }
+        return h;
+    }
+
+    private static final class Node<T> {
+        T value;
+        final int hash;
+        final int slot;
+        Node<T> next;
+        Node<T> before;
+        Node<T> after;
+
+        Node(T value, int hash, int slot) {
+            this.value = value;
+            this.hash = hash;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package petshelter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class NgramIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int[] NO_ROWS = new int[0];
+
+    private final Map<Long, Posting> postings = new HashMap<>();
+    private final TreeMap<String, Integer> names = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private String[] texts = new String[16];
+
+    public void add(int row, String text) {
+        if (row >= texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(row + 1, texts.length << 1));
+        }
+        texts[row] = text;
+        forEachGram(text, gram -> postings.computeIfAbsent(gram, k -> new Posting()).add(row));
+        names.merge(text, 1, Integer::sum);
+    }
+
+    public void remove(int row, String text) {
+        if (row < texts.length) {
+            texts[row] = null;
+        }
+        forEachGram(text, gram -> {
+            Posting posting = postings.get(gram);
+            if (posting != null && posting.remove(row) && posting.size == 0) {
+                postings.remove(gram);
+            }
+        });
+        names.computeIfPresent(text, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // Ascending rows whose text contains the query, ignoring case; none for a null or blank query.
+    public int[] search(String query) {
+        if (query == null || query.trim().isEmpty()) return NO_ROWS;
+        int length = query.length();
+        if (length <= GRAM_LENGTH) {
+            Posting posting = postings.get(gramKey(query, 0, length));
+            return posting == null ? NO_ROWS : posting.toArray();
+        }
+
+        Posting rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= length; i++) {
+            Posting posting = postings.get(gramKey(query, i, GRAM_LENGTH));
+            if (posting == null) return NO_ROWS;
+            if (rarest == null || posting.size < rarest.size) {
+                rarest = posting;
+            }
+        }
+
+        int[] matches = rarest.toArray();
+        int count = 0;
+        for (int row : matches) {
+            if (containsIgnoreCase(texts[row], query)) {
+                matches[count++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    // An upper bound on search(query).length, from the posting sizes alone; -1 for a null or empty query.
+    public int estimate(String query) {
+        if (query == null || query.isEmpty()) return -1;
+        int length = query.length();
+        int bound = Integer.MAX_VALUE;
+        for (int i = 0; i + Math.min(length, GRAM_LENGTH) <= length; i++) {
+            Posting posting = postings.get(gramKey(query, i, Math.min(length, GRAM_LENGTH)));
+            if (posting == null) return 0;
+            bound = Math.min(bound, posting.size);
+        }
+        return bound;
+    }
+
+    public List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (String name : names.tailMap(prefix, true).keySet()) {
+            if (result.size() >= limit || !name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                break;
+            }
+            result.add(name);
+        }
+        return result;
+    }
+
+    private static void forEachGram(String text, GramConsumer consumer) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            for (int n = 1; n <= GRAM_LENGTH && i + n <= length; n++) {
+                consumer.accept(gramKey(text, i, n));
+            }
+        }
+    }
+
+    private static long gramKey(String text, int from, int n) {
+        long key = n;
+        for (int i = from; i < from + n; i++) {
+            key = (key << 16) | fold(text.charAt(i));
+        }
+        return key;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean containsIgnoreCase(String text, String query) {
+        if (text == null) return false;
+        for (int i = 0; i + query.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private interface GramConsumer {
+        void accept(long gram);
+    }
+
+    // The rows holding one gram, split into chunks of 65536 rows by the high bits of the row. A chunk keeps its
+    // low bits in a sorted array while it is small and switches to a bitmap past ARRAY_LIMIT, so add and remove
+    // cost at most one 4096-entry shift however many rows share the gram.
+    private static final class Posting {
+        private static final int CHUNK_BITS = 16;
+        private static final int ARRAY_LIMIT = 4096;
+
+        private Chunk[] chunks = new Chunk[1];
+        int size;
+
+        void add(int row) {
+            int high = row >>> CHUNK_BITS;
+            if (high >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(high + 1, chunks.length << 1));
+            }
+            Chunk chunk = chunks[high];
+            if (chunk == null) {
+                chunk = chunks[high] = new Chunk();
+            }
+            if (chunk.add((char) row)) {
+                size++;
+            }
+        }
+
+        boolean remove(int row) {
+            int high = row >>> CHUNK_BITS;
+            Chunk chunk = high < chunks.length ? chunks[high] : null;
+            if (chunk == null || !chunk.remove((char) row)) return false;
+            if (chunk.count == 0) {
+                chunks[high] = null;
+            }
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            int[] rows = new int[size];
+            int at = 0;
+            for (int high = 0; high < chunks.length; high++) {
+                if (chunks[high] != null) {
+                    at = chunks[high].copyTo(rows, at, high << CHUNK_BITS);
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static final class Chunk {
+        private char[] values = new char[4];
+        private long[] bits;
+        int count;
+
+        boolean add(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) != 0) return false;
+                bits[low >>> 6] |= mask;
+                count++;
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, count, low);
+            if (at >= 0) return false;
+            if (count == Posting.ARRAY_LIMIT) {
+                bits = new long[1 << (Posting.CHUNK_BITS - 6)];
+                for (int i = 0; i < count; i++) {
+                    bits[values[i] >>> 6] |= 1L << values[i];
+                }
+                values = null;
+                return add(low);
+            }
+            at = -at - 1;
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count << 1);
+            }
+            System.arraycopy(values, at, values, at + 1, count - at);
+            values[at] = low;
+            count++;
+            return true;
+        }
+
+        // A bitmap stays a bitmap once built; it is at most 8 KB and only common grams ever need one.
+        boolean remove(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) == 0) return false;
+                bits[low >>> 6] &= ~mask;
+                count--;
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, count, low);
+            if (at < 0) return false;
+            System.arraycopy(values, at + 1, values, at, count - at - 1);
+            count--;
+            return true;
+        }
+
+        int copyTo(int[] rows, int at, int base) {
+            if (bits == null) {
+                for (int i = 0; i < count; i++) {
+                    rows[at++] = base | values[i];
+                }
+                return at;
+            }
+            for (int word = 0; word < bits.length; word++) {
+                long w = bits[word];
+                while (w != 0) {
+                    rows[at++] = base | (word << 6) | Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                }
+            }
+            return at;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package petshelter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Operations that are sampled pick every sampleEvery-th call by a plain counter: lost increments between threads
+// only shift which calls are picked, and it is far cheaper than an atomic or a random draw. Their call count is
+// then an estimate from the samples.
+public class OperationMetrics implements OperationMetricsMBean {
+    private final ShelterMetrics.Operation operation;
+    private final int sampleMask;
+    private final LongAdder calls = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private int ticks;
+
+    OperationMetrics(ShelterMetrics.Operation operation) {
+        this.operation = operation;
+        this.sampleMask = operation.getSampleEvery() - 1;
+    }
+
+    long start() {
+        if (sampleMask != 0 && (++ticks & sampleMask) != 0) {
+            return ShelterMetrics.NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    void record(long startNanos) {
+        if (startNanos != ShelterMetrics.NOT_SAMPLED) {
+            latencies.record(System.nanoTime() - startNanos);
+            calls.increment();
+        }
+    }
+
+    public LatencyHistogram.Snapshot getLatencies() {
+        return latencies.snapshot();
+    }
+
+    @Override
+    public String getOperation() {
+        return operation.getLabel();
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum() * (sampleMask + 1);
+    }
+
+    @Override
+    public long getSampledCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latencies.snapshot().getMean() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latencies.snapshot().getValueAtPercentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latencies.snapshot().getValueAtPercentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latencies.snapshot().getValueAtPercentile(0.999) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latencies.snapshot().getMax() / 1e3;
+    }
+}
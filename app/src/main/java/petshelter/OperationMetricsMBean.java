@@ -0,0 +1,20 @@
+package petshelter;
+
+// Latencies are in microseconds and cumulative since the shelter was opened.
+public interface OperationMetricsMBean {
+    String getOperation();
+
+    long getCalls();
+
+    long getSampledCalls();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,194 @@
+package petshelter;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// A persistent array: set returns a new version sharing every node it did not touch, so old versions stay
+// readable without locks. It is a 32-way trie over fixed positions; a null position is a hole, each node counts
+// the values below it, and the list view skips holes in position order.
+//
+// Nodes created under a non-null edit token are changed in place by later sets with the same token, so a
+// writer pays for each path once per token rather than once per set. A version built under a token must not
+// be shared until the writer is done with that token.
+final class PersistentVector<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(new Node(null, new Object[WIDTH], 0), 0, 0, 0);
+
+    private final Node root;
+    private final int shift;
+    private final int end;
+    private final int size;
+
+    private PersistentVector(Node root, int shift, int end, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.end = end;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    // Values, not positions.
+    int size() {
+        return size;
+    }
+
+    // One past the highest position ever set; end() - size() positions are holes.
+    int end() {
+        return end;
+    }
+
+    PersistentVector<T> set(int position, T value, Object edit) {
+        Node top = root;
+        int topShift = shift;
+        while (position >= (1L << (topShift + BITS))) {
+            if (value == null) return this;
+            Node grown = new Node(edit, new Object[WIDTH], top.count);
+            grown.array[0] = top;
+            top = grown;
+            topShift += BITS;
+        }
+        Object old = valueAt(top, topShift, position);
+        if (old == value) {
+            return top == root ? this : new PersistentVector<>(top, topShift, end, size);
+        }
+        int delta = (value == null ? 0 : 1) - (old == null ? 0 : 1);
+        Node node = editable(top, edit);
+        node.count += delta;
+        top = node;
+        for (int level = topShift; level > 0; level -= BITS) {
+            int i = (position >>> level) & MASK;
+            Node child = (Node) node.array[i];
+            child = child == null ? new Node(edit, new Object[WIDTH], 0) : editable(child, edit);
+            child.count += delta;
+            node.array[i] = child;
+            node = child;
+        }
+        node.array[position & MASK] = value;
+        return new PersistentVector<>(top, topShift, Math.max(end, position + 1), size + delta);
+    }
+
+    // The index-th value in position order, found through the subtree counts.
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            for (Object slot : node.array) {
+                Node child = (Node) slot;
+                if (child == null) continue;
+                if (index < child.count) {
+                    node = child;
+                    break;
+                }
+                index -= child.count;
+            }
+        }
+        for (Object value : node.array) {
+            if (value != null && index-- == 0) return (T) value;
+        }
+        throw new IllegalStateException("Node counts do not match their values");
+    }
+
+    // The value at a position, or null for a hole or a position never set.
+    @SuppressWarnings("unchecked")
+    T at(int position) {
+        if (position < 0 || position >= end) return null;
+        return (T) valueAt(root, shift, position);
+    }
+
+    Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int position;
+            private Object[] leaf;
+            private Object next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next == null) throw new NoSuchElementException();
+                Object value = next;
+                next = advance();
+                return (T) value;
+            }
+
+            private Object advance() {
+                while (position < end) {
+                    if (leaf == null || (position & MASK) == 0) {
+                        leaf = leafAt(position);
+                        if (leaf == null) {
+                            position = (position | MASK) + 1;
+                            continue;
+                        }
+                    }
+                    Object value = leaf[position++ & MASK];
+                    if (value != null) return value;
+                }
+                return null;
+            }
+        };
+    }
+
+    List<T> asList() {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return PersistentVector.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return PersistentVector.this.iterator();
+            }
+        };
+    }
+
+    private Object[] leafAt(int position) {
+        Node node = root;
+        for (int level = shift; level > 0 && node != null; level -= BITS) {
+            node = (Node) node.array[(position >>> level) & MASK];
+        }
+        return node == null ? null : node.array;
+    }
+
+    private static Object valueAt(Node node, int shift, int position) {
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(position >>> level) & MASK];
+            if (node == null) return null;
+        }
+        return node.array[position & MASK];
+    }
+
+    private static Node editable(Node node, Object edit) {
+        return edit != null && node.edit == edit ? node : new Node(edit, node.array.clone(), node.count);
+    }
+
+    private static final class Node {
+        final Object edit;
+        final Object[] array;
+        int count;
+
+        Node(Object edit, Object[] array, int count) {
+            this.edit = edit;
+            this.array = array;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package petshelter;
+
+// A new pet is a draft until ShelterManager stores it; from then on it is frozen, and an update stores a changed
+// copy in its place.
+public class Pet {
+    private int id;
+    private String species;
+    private final String name;
+    private final int age;
+    private String healthStatus;
+    private String adopterName;
+    private int adopterId;
+    private final int keyHash;
+    private boolean frozen;
+
+    public Pet(String species, String name, int age, String healthStatus) {
+        this.species = species;
+        this.name = name;
+        this.age = age;
+        this.healthStatus = healthStatus;
+        this.adopterName = null;
+        this.keyHash = KeyIndex.hash(species, name);
+        this.frozen = false;
+    }
+
+    private Pet(Pet source, int age, String healthStatus, String adopterName, int adopterId, boolean frozen) {
+        this.id = source.id;
+        this.species = source.species;
+        this.name = source.name;
+        this.age = age;
+        this.healthStatus = healthStatus;
+        this.adopterName = adopterName;
+        this.adopterId = adopterId;
+        this.keyHash = source.keyHash;
+        this.frozen = frozen;
+    }
+
+    public static Pet fromFileString(String line) {
+        return new RecordCodec().decodePet(line, 0, line.length());
+    }
+
+    // Assigned by ShelterManager when the pet is added; 0 until then.
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        checkMutable();
+        this.id = id;
+    }
+
+    public String getSpecies() {
+        return species;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public String getHealthStatus() {
+        return healthStatus;
+    }
+
+    public String getAdopterName() {
+        return adopterName;
+    }
+
+    // For loaders; the manager fills in the adopter ID when the pet is stored.
+    void setAdopterName(String adopterName) {
+        checkMutable();
+        this.adopterName = adopterName;
+    }
+
+    // The adopter's ID, or 0 when the pet is available or the adopter is only known by name.
+    public int getAdopterId() {
+        return adopterId;
+    }
+
+    void setAdopterId(int adopterId) {
+        checkMutable();
+        this.adopterId = adopterId;
+    }
+
+    // Called by the manager storing the draft, so its stored pets share one String per distinct value.
+    void intern(SymbolTable speciesTable, SymbolTable healthStatusTable) {
+        checkMutable();
+        species = speciesTable.intern(species);
+        healthStatus = healthStatusTable.intern(healthStatus);
+    }
+
+    // Called once the pet is stored; its setters throw from then on.
+    void freeze() {
+        frozen = true;
+    }
+
+    // A draft with the same fields, for storing a pet that another manager already holds.
+    Pet copy() {
+        return new Pet(this, age, healthStatus, adopterName, adopterId, false);
+    }
+
+    Pet withAge(int newAge) {
+        return new Pet(this, newAge, healthStatus, adopterName, adopterId, true);
+    }
+
+    Pet withHealthStatus(String newHealthStatus) {
+        return new Pet(this, age, newHealthStatus, adopterName, adopterId, true);
+    }
+
+    Pet withAdopter(String newAdopterName, int newAdopterId) {
+        return new Pet(this, age, healthStatus, newAdopterName, newAdopterId, true);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) throw new UnsupportedOperationException(species + " " + name + " is stored; update it through ShelterManager");
+    }
+
+    @Override
+    public String toString() {
+        String adoptedBy = (adopterName != null && !adopterName.isEmpty()) ? ", Adopted by: " + adopterName : ", Available";
+        return String.format("Species: %s, Name: %s, Age: %d, Health: %s%s", species, name, age, healthStatus, adoptedBy);
+    }
+
+    public String toFileString() {
+        StringBuilder line = new StringBuilder();
+        new RecordCodec().encodePet(this, line);
+        return line.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Pet pet = (Pet) o;
+        return keyHash == pet.keyHash && equalsIgnoreCase(name, pet.name) && equalsIgnoreCase(species, pet.species);
+    }
+
+    // Cached at construction; case-insensitive like equals, and allocation-free.
+    @Override
+    public int hashCode() {
+        return keyHash;
+    }
+
+    private static boolean equalsIgnoreCase(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package petshelter;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+public class PetBitmapIndex {
+    private final BitSet all = new BitSet();
+    private final BitSet adopted = new BitSet();
+    private final Map<String, BitSet> bySpecies = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final TreeMap<Integer, BitSet> byAge = new TreeMap<>();
+
+    public void add(int row, Pet pet) {
+        all.set(row);
+        bySpecies.computeIfAbsent(pet.getSpecies(), k -> new BitSet()).set(row);
+        byAge.computeIfAbsent(pet.getAge(), k -> new BitSet()).set(row);
+        adopted.set(row, isAdopted(pet));
+    }
+
+    public void remove(int row, Pet pet) {
+        all.clear(row);
+        adopted.clear(row);
+        clearRow(bySpecies, pet.getSpecies(), row);
+        clearRow(byAge, pet.getAge(), row);
+    }
+
+    public void updateAge(int row, int oldAge, int newAge) {
+        clearRow(byAge, oldAge, row);
+        byAge.computeIfAbsent(newAge, k -> new BitSet()).set(row);
+    }
+
+    public void updateAdopted(int row, boolean isAdopted) {
+        adopted.set(row, isAdopted);
+    }
+
+    // Any criterion left null is not constrained.
+    public BitSet select(String species, Integer minAge, Integer maxAge, Boolean isAdopted) {
+        BitSet result;
+        if (species != null) {
+            BitSet speciesRows = bySpecies.get(species);
+            if (speciesRows == null) return new BitSet();
+            result = (BitSet) speciesRows.clone();
+        } else {
+            result = (BitSet) all.clone();
+        }
+
+        if (minAge != null || maxAge != null) {
+            int from = minAge == null ? Integer.MIN_VALUE : minAge;
+            int to = maxAge == null ? Integer.MAX_VALUE : maxAge;
+            BitSet ageRows = new BitSet();
+            if (from <= to) {
+                for (BitSet rows : byAge.subMap(from, true, to, true).values()) {
+                    ageRows.or(rows);
+                }
+            }
+            result.and(ageRows);
+        }
+
+        if (isAdopted != null) {
+            if (isAdopted) {
+                result.and(adopted);
+            } else {
+                result.andNot(adopted);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return all.cardinality();
+    }
+
+    public int countSpecies(String species) {
+        BitSet rows = bySpecies.get(species);
+        return rows == null ? 0 : rows.cardinality();
+    }
+
+    // The distinct ages present in the range, each one bitmap that select would OR together.
+    public NavigableSet<Integer> agesBetween(int minAge, int maxAge) {
+        return byAge.navigableKeySet().subSet(minAge, true, maxAge, true);
+    }
+
+    // Words in each bitmap, the unit of work for one AND or OR.
+    public int words() {
+        return (all.length() + 63) >>> 6;
+    }
+
+    private static <K> void clearRow(Map<K, BitSet> index, K key, int row) {
+        BitSet rows = index.get(key);
+        if (rows != null) {
+            rows.clear(row);
+            if (rows.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static boolean isAdopted(Pet pet) {
+        return pet.getAdopterName() != null && !pet.getAdopterName().isEmpty();
+    }
+}
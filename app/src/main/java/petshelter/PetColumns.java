@@ -0,0 +1,137 @@
+package petshelter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Struct-of-arrays copy of the fields scans and aggregations read, indexed by KeyIndex slot.
+// Species and health statuses are the owning manager's SymbolTable codes; a free row has species code -1, so
+// every scan is a plain loop over primitive arrays with no per-row object access.
+class PetColumns {
+    private static final int FREE = -1;
+    private static final int MAX_AGE_SPAN = 4096;
+
+    private final SymbolTable speciesSymbols;
+    private final SymbolTable healthSymbols;
+    private int[] ages = new int[16];
+    private int[] species = newCodes(16);
+    private int[] healthStatuses = newCodes(16);
+    private final BitSet adopted = new BitSet();
+    private int limit;
+    private int size;
+
+    PetColumns(SymbolTable speciesSymbols, SymbolTable healthSymbols) {
+        this.speciesSymbols = speciesSymbols;
+        this.healthSymbols = healthSymbols;
+    }
+
+    // Stores the pet's fields in the row, whether the row is new or holds an earlier version of the pet.
+    void set(int row, Pet pet) {
+        ensureCapacity(row + 1);
+        if (species[row] == FREE) size++;
+        ages[row] = pet.getAge();
+        species[row] = speciesSymbols.code(pet.getSpecies());
+        healthStatuses[row] = pet.getHealthStatus() == null ? FREE : healthSymbols.code(pet.getHealthStatus());
+        adopted.set(row, pet.getAdopterName() != null && !pet.getAdopterName().isEmpty());
+        limit = Math.max(limit, row + 1);
+    }
+
+    void remove(int row) {
+        if (row < 0 || row >= limit || species[row] == FREE) return;
+        species[row] = FREE;
+        healthStatuses[row] = FREE;
+        adopted.clear(row);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Rows in ascending order.
+    int[] selectAgeRange(int minAge, int maxAge) {
+        int[] rows = new int[size];
+        int count = 0;
+        int[] ages = this.ages;
+        int[] species = this.species;
+        for (int row = 0; row < limit; row++) {
+            int age = ages[row];
+            if (species[row] != FREE && age >= minAge && age <= maxAge) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // Indexed by species code; codes with no live pet count 0.
+    int[] countBySpecies() {
+        return countCodes(species, speciesSymbols.size());
+    }
+
+    // Indexed by health status code; pets without a health status are not counted.
+    int[] countByHealthStatus() {
+        return countCodes(healthStatuses, healthSymbols.size());
+    }
+
+    int countAdopted() {
+        return adopted.cardinality();
+    }
+
+    // Counts into an array over the span of ages present, falling back to a map when stray ages make it too wide.
+    Map<Integer, Integer> countByAge() {
+        int[] ages = this.ages;
+        int[] species = this.species;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int row = 0; row < limit; row++) {
+            if (species[row] != FREE) {
+                min = Math.min(min, ages[row]);
+                max = Math.max(max, ages[row]);
+            }
+        }
+        Map<Integer, Integer> result = new TreeMap<>();
+        if (min > max) return Collections.unmodifiableMap(result);
+        if ((long) max - min >= MAX_AGE_SPAN) {
+            for (int row = 0; row < limit; row++) {
+                if (species[row] != FREE) result.merge(ages[row], 1, Integer::sum);
+            }
+            return Collections.unmodifiableMap(result);
+        }
+        int[] counts = new int[max - min + 1];
+        for (int row = 0; row < limit; row++) {
+            if (species[row] != FREE) counts[ages[row] - min]++;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) result.put(min + i, counts[i]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private int[] countCodes(int[] codes, int symbols) {
+        int[] counts = new int[symbols];
+        for (int row = 0; row < limit; row++) {
+            int code = codes[row];
+            if (code != FREE) counts[code]++;
+        }
+        return counts;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ages.length) return;
+        int length = Math.max(capacity, ages.length << 1);
+        int oldLength = ages.length;
+        ages = Arrays.copyOf(ages, length);
+        species = Arrays.copyOf(species, length);
+        healthStatuses = Arrays.copyOf(healthStatuses, length);
+        Arrays.fill(species, oldLength, length, FREE);
+        Arrays.fill(healthStatuses, oldLength, length, FREE);
+    }
+
+    private static int[] newCodes(int length) {
+        int[] codes = new int[length];
+        Arrays.fill(codes, FREE);
+        return codes;
+    }
+}
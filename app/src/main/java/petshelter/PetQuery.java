@@ -0,0 +1,156 @@
+package petshelter;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Criteria for ShelterManager.queryPets. A null criterion matches every pet; text criteria ignore case.
+// Without an order the pets come in index order, whichever access path the planner picks.
+public class PetQuery {
+    // One page of a query with the number of pets matching in all, both from the same version of the shelter.
+    public static final class Result {
+        private final List<Pet> pets;
+        private final int total;
+
+        Result(List<Pet> pets, int total) {
+            this.pets = pets;
+            this.total = total;
+        }
+
+        public List<Pet> getPets() {
+            return pets;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    public enum SortKey {
+        AGE(Comparator.comparingInt(Pet::getAge).thenComparing(AgeIndex.SPECIES_THEN_NAME),
+                Comparator.comparingInt(Pet::getAge).reversed().thenComparing(AgeIndex.SPECIES_THEN_NAME)),
+        NAME(Comparator.comparing(Pet::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(Pet::getSpecies, String.CASE_INSENSITIVE_ORDER)),
+        SPECIES(AgeIndex.SPECIES_THEN_NAME);
+
+        private final Comparator<Pet> ascending;
+        private final Comparator<Pet> descending;
+
+        SortKey(Comparator<Pet> ascending) {
+            this(ascending, ascending.reversed());
+        }
+
+        // Descending by age keeps ties in species-then-name order, as sortPetsByAge(false) does.
+        SortKey(Comparator<Pet> ascending, Comparator<Pet> descending) {
+            this.ascending = ascending;
+            this.descending = descending;
+        }
+
+        public Comparator<Pet> comparator(boolean isAscending) {
+            return isAscending ? ascending : descending;
+        }
+    }
+
+    private final ShelterManager manager;
+    String species;
+    Integer minAge;
+    Integer maxAge;
+    String healthStatus;
+    Boolean adopted;
+    String nameContains;
+    String namePrefix;
+    String adopterName;
+    SortKey sortKey;
+    boolean ascending = true;
+    int offset;
+    int limit = Integer.MAX_VALUE;
+
+    PetQuery(ShelterManager manager) {
+        this.manager = manager;
+    }
+
+    public PetQuery species(String species) {
+        this.species = blankToNull(species);
+        return this;
+    }
+
+    public PetQuery minAge(Integer minAge) {
+        this.minAge = minAge;
+        return this;
+    }
+
+    public PetQuery maxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    public PetQuery ageBetween(int minAge, int maxAge) {
+        return minAge(minAge).maxAge(maxAge);
+    }
+
+    public PetQuery healthStatus(String healthStatus) {
+        this.healthStatus = blankToNull(healthStatus);
+        return this;
+    }
+
+    // True for adopted pets only, false for available pets only.
+    public PetQuery adopted(Boolean adopted) {
+        this.adopted = adopted;
+        return this;
+    }
+
+    public PetQuery nameContains(String term) {
+        this.nameContains = blankToNull(term);
+        return this;
+    }
+
+    public PetQuery nameStartsWith(String prefix) {
+        this.namePrefix = blankToNull(prefix);
+        return this;
+    }
+
+    public PetQuery adoptedBy(String adopterName) {
+        this.adopterName = blankToNull(adopterName);
+        return this;
+    }
+
+    public PetQuery orderBy(SortKey sortKey, boolean ascending) {
+        this.sortKey = sortKey;
+        this.ascending = ascending;
+        return this;
+    }
+
+    public PetQuery offset(int offset) {
+        if (offset < 0) throw new IllegalArgumentException("Offset cannot be negative: " + offset);
+        this.offset = offset;
+        return this;
+    }
+
+    public PetQuery limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit cannot be negative: " + limit);
+        this.limit = limit;
+        return this;
+    }
+
+    public List<Pet> list() {
+        return manager.runQuery(this);
+    }
+
+    // How many pets match, regardless of the offset and limit.
+    public int count() {
+        return manager.countQuery(this);
+    }
+
+    // list() and count() under one read, so the total describes the version the page came from.
+    public Result listWithTotal() {
+        return manager.runQueryWithTotal(this);
+    }
+
+    // The plan list() would run now: the chosen access path with its estimate, the criteria checked per pet,
+    // how the order is produced, and the other paths that were costed.
+    public String explain() {
+        return manager.explainQuery(this);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,71 @@
+package petshelter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class PetSelection implements Iterable<Pet> {
+    private final int[] rows;
+    private final Pet[] matches;
+
+    // Resolves the rows while the caller still holds the manager's read lock, so later paging needs no lock.
+    PetSelection(int[] rows, KeyIndex<Pet> pets) {
+        this.rows = rows;
+        this.matches = new Pet[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            matches[i] = pets.getBySlot(rows[i]);
+        }
+    }
+
+    public int size() {
+        return matches.length;
+    }
+
+    public boolean isEmpty() {
+        return matches.length == 0;
+    }
+
+    public Pet get(int index) {
+        return matches[index];
+    }
+
+    public int[] rowIds() {
+        return Arrays.copyOf(rows, rows.length);
+    }
+
+    public List<Pet> page(int offset, int limit) {
+        int from = Math.min(matches.length, Math.max(0, offset));
+        int to = (int) Math.min(matches.length, (long) from + Math.max(0, limit));
+        return new ArrayList<>(Arrays.asList(matches).subList(from, to));
+    }
+
+    public List<Pet> toList() {
+        return page(0, matches.length);
+    }
+
+    // A read-only view over the matches, for callers that should not pay for a copy.
+    public List<Pet> asList() {
+        return Collections.unmodifiableList(Arrays.asList(matches));
+    }
+
+    @Override
+    public Iterator<Pet> iterator() {
+        return new Iterator<Pet>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < matches.length;
+            }
+
+            @Override
+            public Pet next() {
+                if (next >= matches.length) throw new NoSuchElementException();
+                return matches[next++];
+            }
+        };
+    }
+}
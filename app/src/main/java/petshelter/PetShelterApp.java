@@ -0,0 +1,831 @@
+package petshelter;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class PetShelterApp extends JFrame {
+    private static final int SUGGESTION_LIMIT = 8;
+    private static final int QUERY_DELAY_MILLIS = 250;
+    private static final int DASHBOARD_TOP_ADOPTERS = 5;
+    private static final long METRICS_DUMP_SECONDS = Long.getLong("petshelter.metricsDumpSeconds", 0);
+
+    private final ShelterManager manager;
+
+    private JList<Pet> petList;
+    private RecordListModel<Pet> petListModel;
+    private JButton addPetButton, editPetButton, deletePetButton, sortPetsButton, sortPetsDescButton, adoptPetButton, returnPetButton;
+    private JComboBox<String> speciesFilterComboBox, statusFilterComboBox;
+    private JTextField ageFilterMinField, ageFilterMaxField, searchPetField;
+    private JButton filterPetsButton, searchPetButton, clearPetFilterButton;
+
+    private JList<Adopter> adopterList;
+    private RecordListModel<Adopter> adopterListModel;
+    private JButton addAdopterButton, editAdopterButton, deleteAdopterButton, searchAdopterButton;
+    private JTextField searchAdopterField;
+
+    private JTextArea dashboardArea;
+    private DashboardModel dashboard;
+
+    private JMenuItem importPetsMenuItem, exportPetsMenuItem;
+
+    // The queries behind the current views, re-run when a change may alter which records they show.
+    private final Supplier<List<Pet>> allPetsQuery;
+    private final Supplier<List<Adopter>> allAdoptersQuery;
+    private Supplier<List<Pet>> petQuery;
+    private Supplier<List<Adopter>> adopterQuery;
+    private final DebouncedQuery<Pet> petQueries = new DebouncedQuery<>(QUERY_DELAY_MILLIS);
+    private final DebouncedQuery<Adopter> adopterQueries = new DebouncedQuery<>(QUERY_DELAY_MILLIS);
+    private boolean updatingSpeciesFilter;
+
+    public PetShelterApp() {
+        manager = new ShelterManager();
+        manager.getMetrics().registerMBeans("default");
+        if (METRICS_DUMP_SECONDS > 0) {
+            manager.scheduleMetricsDump(TimeUnit.SECONDS.toMillis(METRICS_DUMP_SECONDS), System.out);
+        }
+        allPetsQuery = manager::getAllPets;
+        allAdoptersQuery = manager::getAllAdopters;
+
+        setTitle("Pet Shelter Management System");
+        setSize(1000, 700);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Every change is already in the journal; closing only waits for pending writes, off the EDT.
+                setEnabled(false);
+                setTitle("Pet Shelter Management System - Closing...");
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                new SwingWorker<Void, Void>() {
+                    @Override
+                    protected Void doInBackground() {
+                        manager.close();
+                        return null;
+                    }
+
+                    @Override
+                    protected void done() {
+                        System.out.println("Data saved. Exiting.");
+                        System.exit(0);
+                    }
+                }.execute();
+            }
+        });
+
+        initComponents();
+        layoutComponents();
+        attachListeners();
+
+        // Listening first, so no change falls between the seed and the first event; events the seed already
+        // covers change nothing when applied.
+        manager.addListener(this::applyChanges, SwingUtilities::invokeLater);
+        dashboard = new DashboardModel(manager.snapshot());
+        showPets(allPetsQuery);
+        showAdopters(allAdoptersQuery);
+        updateSpeciesFilter();
+        updateDashboard();
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            PetShelterApp app = new PetShelterApp();
+            app.setVisible(true);
+        });
+    }
+
+    private void initComponents() {
+        petListModel = new RecordListModel<>(Pet::toString);
+        petList = new JList<>();
+        petListModel.install(petList, new Pet("Species", "Prototype pet name", 10, "Healthy"));
+        petList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        addPetButton = new JButton("Add Pet");
+        editPetButton = new JButton("Edit Pet");
+        editPetButton.setEnabled(false);
+        deletePetButton = new JButton("Delete Pet");
+        deletePetButton.setEnabled(false);
+        sortPetsButton = new JButton("Sort by Age (Asc)");
+        sortPetsDescButton = new JButton("Sort by Age (Desc)");
+        adoptPetButton = new JButton("Adopt Selected Pet");
+        adoptPetButton.setEnabled(false);
+        returnPetButton = new JButton("Return Selected Pet");
+        returnPetButton.setEnabled(false);
+
+        speciesFilterComboBox = new JComboBox<>();
+        statusFilterComboBox = new JComboBox<>(new String[]{"All", "Available", "Adopted"});
+        ageFilterMinField = new JTextField(3);
+        ageFilterMaxField = new JTextField(3);
+        filterPetsButton = new JButton("Filter Pets");
+        searchPetField = new JTextField(15);
+        searchPetButton = new JButton("Search Pet by Name");
+        clearPetFilterButton = new JButton("Clear Filters/Search");
+
+        adopterListModel = new RecordListModel<>(Adopter::toString);
+        adopterList = new JList<>();
+        adopterListModel.install(adopterList, new Adopter("Prototype adopter name", "555-0100"));
+        adopterList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        addAdopterButton = new JButton("Add Adopter");
+        editAdopterButton = new JButton("Edit Adopter");
+        editAdopterButton.setEnabled(false);
+        deleteAdopterButton = new JButton("Delete Adopter");
+        deleteAdopterButton.setEnabled(false);
+        searchAdopterField = new JTextField(15);
+        searchAdopterButton = new JButton("Search Adopter by Name");
+
+        importPetsMenuItem = new JMenuItem("Import Pets...");
+        exportPetsMenuItem = new JMenuItem("Export Shown Pets...");
+
+        dashboardArea = new JTextArea(20, 22);
+        dashboardArea.setEditable(false);
+        dashboardArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+    }
+
+    private void layoutComponents() {
+        setLayout(new BorderLayout(10, 10));
+
+        JMenuBar menuBar = new JMenuBar();
+        JMenu fileMenu = new JMenu("File");
+        fileMenu.add(importPetsMenuItem);
+        fileMenu.add(exportPetsMenuItem);
+        menuBar.add(fileMenu);
+        setJMenuBar(menuBar);
+
+        JPanel petPanel = new JPanel(new BorderLayout(5, 5));
+        petPanel.setBorder(BorderFactory.createTitledBorder("Pets Management"));
+
+        JPanel petFilterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        petFilterPanel.add(new JLabel("Species:"));
+        petFilterPanel.add(speciesFilterComboBox);
+        petFilterPanel.add(new JLabel("Status:"));
+        petFilterPanel.add(statusFilterComboBox);
+        petFilterPanel.add(new JLabel("Age (Min-Max):"));
+        petFilterPanel.add(ageFilterMinField);
+        petFilterPanel.add(new JLabel("-"));
+        petFilterPanel.add(ageFilterMaxField);
+        petFilterPanel.add(filterPetsButton);
+        petFilterPanel.add(new JLabel("Name:"));
+        petFilterPanel.add(searchPetField);
+        petFilterPanel.add(searchPetButton);
+        petFilterPanel.add(clearPetFilterButton);
+
+        petPanel.add(petFilterPanel, BorderLayout.NORTH);
+        petPanel.add(new JScrollPane(petList), BorderLayout.CENTER);
+
+        JPanel petActionPanel = new JPanel(new FlowLayout());
+        petActionPanel.add(addPetButton);
+        petActionPanel.add(editPetButton);
+        petActionPanel.add(deletePetButton);
+        petActionPanel.add(sortPetsButton);
+        petActionPanel.add(sortPetsDescButton);
+        petActionPanel.add(adoptPetButton);
+        petActionPanel.add(returnPetButton);
+        petPanel.add(petActionPanel, BorderLayout.SOUTH);
+
+        JPanel adopterPanel = new JPanel(new BorderLayout(5, 5));
+        adopterPanel.setBorder(BorderFactory.createTitledBorder("Adopters Management"));
+
+        JPanel adopterSearchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        adopterSearchPanel.add(new JLabel("Name:"));
+        adopterSearchPanel.add(searchAdopterField);
+        adopterSearchPanel.add(searchAdopterButton);
+        adopterPanel.add(adopterSearchPanel, BorderLayout.NORTH);
+
+        adopterPanel.add(new JScrollPane(adopterList), BorderLayout.CENTER);
+
+        JPanel adopterActionPanel = new JPanel(new FlowLayout());
+        adopterActionPanel.add(addAdopterButton);
+        adopterActionPanel.add(editAdopterButton);
+        adopterActionPanel.add(deleteAdopterButton);
+        adopterPanel.add(adopterActionPanel, BorderLayout.SOUTH);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, petPanel, adopterPanel);
+        splitPane.setResizeWeight(0.6);
+        add(splitPane, BorderLayout.CENTER);
+
+        JPanel dashboardPanel = new JPanel(new BorderLayout());
+        dashboardPanel.setBorder(BorderFactory.createTitledBorder("Statistics"));
+        dashboardPanel.add(new JScrollPane(dashboardArea), BorderLayout.CENTER);
+        add(dashboardPanel, BorderLayout.EAST);
+    }
+
+    private void attachListeners() {
+        petList.addListSelectionListener(e -> updatePetButtons());
+
+        adopterList.addListSelectionListener(e -> {
+            boolean selected = !adopterList.isSelectionEmpty();
+            editAdopterButton.setEnabled(selected);
+            deleteAdopterButton.setEnabled(selected);
+        });
+
+        addPetButton.addActionListener(e -> showAddPetDialog());
+        editPetButton.addActionListener(e -> showEditPetDialog(petList.getSelectedValue()));
+        deletePetButton.addActionListener(e -> deleteSelectedPet());
+        sortPetsButton.addActionListener(e -> {
+            showPets(manager::sortPetsByAge);
+            JOptionPane.showMessageDialog(this, "Pets sorted by age.", "Sort", JOptionPane.INFORMATION_MESSAGE);
+        });
+        sortPetsDescButton.addActionListener(e -> {
+            showPets(() -> manager.sortPetsByAge(false));
+            JOptionPane.showMessageDialog(this, "Pets sorted by age (oldest first).", "Sort", JOptionPane.INFORMATION_MESSAGE);
+        });
+        adoptPetButton.addActionListener(e -> showAdoptPetDialog(petList.getSelectedValue()));
+        returnPetButton.addActionListener(e -> returnSelectedPet(petList.getSelectedValue()));
+
+        filterPetsButton.addActionListener(e -> filterAndRefreshPets(true));
+        searchPetButton.addActionListener(e -> searchAndRefreshPets(true));
+        speciesFilterComboBox.addActionListener(e -> {
+            if (!updatingSpeciesFilter) filterAndRefreshPets(false);
+        });
+        statusFilterComboBox.addActionListener(e -> filterAndRefreshPets(false));
+        onTextChange(ageFilterMinField, () -> filterAndRefreshPets(false));
+        onTextChange(ageFilterMaxField, () -> filterAndRefreshPets(false));
+        onTextChange(searchPetField, () -> searchAndRefreshPets(false));
+        onTextChange(searchAdopterField, () -> searchAndRefreshAdopters(false));
+        clearPetFilterButton.addActionListener(e -> {
+            speciesFilterComboBox.setSelectedIndex(0);
+            statusFilterComboBox.setSelectedIndex(0);
+            ageFilterMinField.setText("");
+            ageFilterMaxField.setText("");
+            searchPetField.setText("");
+            showPets(allPetsQuery);
+        });
+
+        importPetsMenuItem.addActionListener(e -> importPets());
+        exportPetsMenuItem.addActionListener(e -> exportShownPets());
+
+        addAdopterButton.addActionListener(e -> showAddAdopterDialog());
+        editAdopterButton.addActionListener(e -> showEditAdopterDialog(adopterList.getSelectedValue()));
+        deleteAdopterButton.addActionListener(e -> deleteSelectedAdopter());
+        searchAdopterButton.addActionListener(e -> searchAndRefreshAdopters(true));
+
+        installSuggestions(searchPetField, manager::suggestPetNames, () -> searchAndRefreshPets(false));
+        installSuggestions(searchAdopterField, manager::suggestAdopterNames, () -> searchAndRefreshAdopters(false));
+    }
+
+    private static void onTextChange(JTextField field, Runnable action) {
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                action.run();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                action.run();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+    }
+
+    private void installSuggestions(JTextField field, BiFunction<String, Integer, List<String>> source, Runnable onPick) {
+        JPopupMenu popup = new JPopupMenu();
+        popup.setFocusable(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                update();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                update();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+
+            private void update() {
+                SwingUtilities.invokeLater(() -> {
+                    popup.setVisible(false);
+                    popup.removeAll();
+                    String prefix = field.getText().trim();
+                    if (prefix.isEmpty() || !field.hasFocus()) return;
+                    for (String suggestion : source.apply(prefix, SUGGESTION_LIMIT)) {
+                        if (suggestion.equals(prefix)) continue;
+                        JMenuItem item = new JMenuItem(suggestion);
+                        item.addActionListener(ev -> {
+                            field.setText(suggestion);
+                            popup.setVisible(false);
+                            onPick.run();
+                        });
+                        popup.add(item);
+                    }
+                    if (popup.getComponentCount() > 0) {
+                        popup.show(field, 0, field.getHeight());
+                    }
+                });
+            }
+        });
+    }
+
+    private void updatePetButtons() {
+        Pet selectedPet = petList.getSelectedValue();
+        boolean selected = selectedPet != null;
+        editPetButton.setEnabled(selected);
+        deletePetButton.setEnabled(selected);
+        adoptPetButton.setEnabled(selected && selectedPet.getAdopterName() == null);
+        returnPetButton.setEnabled(selected && selectedPet.getAdopterName() != null);
+    }
+
+    // Queries run off the EDT; a later call, typed or clicked, supersedes one that has not finished.
+    private void showPets(Supplier<List<Pet>> query) {
+        showPets(query, false, null);
+    }
+
+    private void showPets(Supplier<List<Pet>> query, boolean debounce, Runnable whenEmpty) {
+        petQuery = query;
+        Consumer<List<Pet>> show = result -> {
+            petListModel.setRecords(result);
+            if (result.isEmpty() && whenEmpty != null) whenEmpty.run();
+        };
+        if (debounce) {
+            petQueries.schedule(query, show);
+        } else {
+            petQueries.runNow(query, show);
+        }
+    }
+
+    private void showAdopters(Supplier<List<Adopter>> query) {
+        showAdopters(query, false, null);
+    }
+
+    private void showAdopters(Supplier<List<Adopter>> query, boolean debounce, Runnable whenEmpty) {
+        adopterQuery = query;
+        Consumer<List<Adopter>> show = result -> {
+            adopterListModel.setRecords(result);
+            if (result.isEmpty() && whenEmpty != null) whenEmpty.run();
+        };
+        if (debounce) {
+            adopterQueries.schedule(query, show);
+        } else {
+            adopterQueries.runNow(query, show);
+        }
+    }
+
+    // Every view holds frozen records, so a change re-reads the views it may affect; the unfiltered ones are
+    // snapshots, which is O(1).
+    private void applyChanges(List<ShelterEvent> events) {
+        boolean requeryPets = false;
+        boolean requeryAdopters = false;
+        boolean speciesChanged = false;
+        for (ShelterEvent event : events) {
+            dashboard.apply(event);
+            switch (event.getType()) {
+                case PET_ADDED:
+                case PET_REMOVED:
+                    requeryPets = true;
+                    speciesChanged = true;
+                    break;
+                case ADOPTER_ADDED:
+                case ADOPTER_REMOVED:
+                    requeryAdopters = true;
+                    break;
+                case ADOPTER_UPDATED:
+                case ADOPTION_LINKED:
+                case ADOPTION_UNLINKED:
+                    if (event.getAdopter() != null) {
+                        requeryAdopters = true;
+                    }
+                    if (event.getType() != ShelterEvent.Type.ADOPTER_UPDATED) {
+                        requeryPets = true;
+                    }
+                    break;
+                case PET_UPDATED:
+                    requeryPets = true;
+                    break;
+            }
+        }
+        if (requeryPets) {
+            showPets(petQuery);
+        }
+        if (requeryAdopters) {
+            showAdopters(adopterQuery);
+        }
+        if (speciesChanged) {
+            updateSpeciesFilter();
+        }
+        updatePetButtons();
+        updateDashboard();
+    }
+
+    // Renders the dashboard model, which the events keep current; nothing here reads the manager.
+    private void updateDashboard() {
+        DashboardModel stats = dashboard;
+        StringBuilder text = new StringBuilder();
+        text.append("Pets: ").append(stats.getPetCount()).append('\n');
+        text.append("  Available: ").append(stats.getAvailableCount()).append('\n');
+        text.append("  Adopted: ").append(stats.getAdoptedCount()).append('\n');
+        text.append("Adopters: ").append(stats.getAdopterCount()).append('\n');
+        text.append("  With pets: ").append(stats.getAdoptersWithPets()).append("\n\n");
+        text.append("By species:\n");
+        stats.getSpeciesCounts().forEach((species, count) -> text.append("  ").append(species).append(": ").append(count).append('\n'));
+        text.append("\nBy health:\n");
+        stats.getHealthStatusCounts().forEach((status, count) -> text.append("  ").append(status).append(": ").append(count).append('\n'));
+        text.append("\nBy age:\n");
+        stats.getAgeHistogram().forEach((age, count) -> text.append(String.format("  %3d: %d%n", age, count)));
+        text.append("\nTop adopters:\n");
+        for (Map.Entry<String, Integer> entry : stats.topAdopters(DASHBOARD_TOP_ADOPTERS)) {
+            text.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        dashboardArea.setText(text.toString());
+        dashboardArea.setCaretPosition(0);
+    }
+
+    private void updateSpeciesFilter() {
+        Object selected = speciesFilterComboBox.getSelectedItem();
+        updatingSpeciesFilter = true;
+        try {
+            speciesFilterComboBox.removeAllItems();
+            speciesFilterComboBox.addItem("All");
+            List<String> species = manager.getUniqueSpecies();
+            for (String s : species) {
+                speciesFilterComboBox.addItem(s);
+            }
+            if (selected != null && species.contains(selected)) {
+                speciesFilterComboBox.setSelectedItem(selected);
+            }
+        } finally {
+            updatingSpeciesFilter = false;
+        }
+    }
+
+    private void showAddPetDialog() {
+        JTextField nameField = new JTextField(15);
+        JTextField speciesField = new JTextField(15);
+        JTextField ageField = new JTextField(5);
+        JTextField healthField = new JTextField(15);
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Name:"));
+        panel.add(nameField);
+        panel.add(new JLabel("Species:"));
+        panel.add(speciesField);
+        panel.add(new JLabel("Age:"));
+        panel.add(ageField);
+        panel.add(new JLabel("Health Status:"));
+        panel.add(healthField);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Add New Pet", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String name = nameField.getText().trim();
+            String species = speciesField.getText().trim();
+            String ageStr = ageField.getText().trim();
+            String health = healthField.getText().trim();
+
+            if (name.isEmpty() || species.isEmpty() || ageStr.isEmpty() || health.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "All fields are required.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            try {
+                int age = Integer.parseInt(ageStr);
+                if (age < 0) throw new NumberFormatException();
+
+                Pet newPet = new Pet(species, name, age, health);
+                if (manager.addPet(newPet)) {
+                    JOptionPane.showMessageDialog(this, "Pet added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Pet with this name and species already exists.", "Duplicate Error", JOptionPane.ERROR_MESSAGE);
+                }
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid age format. Age must be a non-negative number.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void showEditPetDialog(Pet petToEdit) {
+        if (petToEdit == null) return;
+
+        JTextField nameField = new JTextField(petToEdit.getName(), 15);
+        nameField.setEditable(false);
+        JTextField speciesField = new JTextField(petToEdit.getSpecies(), 15);
+        speciesField.setEditable(false);
+        JTextField ageField = new JTextField(String.valueOf(petToEdit.getAge()), 5);
+        JTextField healthField = new JTextField(petToEdit.getHealthStatus(), 15);
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Name (fixed):"));
+        panel.add(nameField);
+        panel.add(new JLabel("Species (fixed):"));
+        panel.add(speciesField);
+        panel.add(new JLabel("Age:"));
+        panel.add(ageField);
+        panel.add(new JLabel("Health Status:"));
+        panel.add(healthField);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Edit Pet", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String ageStr = ageField.getText().trim();
+            String health = healthField.getText().trim();
+
+            if (ageStr.isEmpty() || health.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Age and Health Status cannot be empty.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            try {
+                int age = Integer.parseInt(ageStr);
+                if (age < 0) throw new NumberFormatException();
+
+                manager.updatePetAge(petToEdit, age);
+                manager.updatePetHealth(petToEdit, health);
+                JOptionPane.showMessageDialog(this, "Pet updated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid age format.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void deleteSelectedPet() {
+        Pet selectedPet = petList.getSelectedValue();
+        if (selectedPet == null) return;
+
+        int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete " + selectedPet.getName() + "?", "Confirm Delete", JOptionPane.YES_NO_OPTION);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            if (manager.removePet(selectedPet)) {
+                JOptionPane.showMessageDialog(this, "Pet deleted.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Could not delete pet.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    // Typed changes are debounced and skip invalid input silently; the Filter button reports it.
+    private void filterAndRefreshPets(boolean interactive) {
+        String selectedSpecies = (String) speciesFilterComboBox.getSelectedItem();
+        String selectedStatus = (String) statusFilterComboBox.getSelectedItem();
+        String minAgeStr = ageFilterMinField.getText().trim();
+        String maxAgeStr = ageFilterMaxField.getText().trim();
+
+        String species = selectedSpecies != null && !selectedSpecies.equals("All") ? selectedSpecies : null;
+        Boolean adopted = "Adopted".equals(selectedStatus) ? Boolean.TRUE : "Available".equals(selectedStatus) ? Boolean.FALSE : null;
+
+        try {
+            Integer minAge = minAgeStr.isEmpty() ? null : Integer.parseInt(minAgeStr);
+            Integer maxAge = maxAgeStr.isEmpty() ? null : Integer.parseInt(maxAgeStr);
+            if (minAge != null && minAge < 0) throw new NumberFormatException("Min age cannot be negative.");
+            if (maxAge != null && maxAge < 0) throw new NumberFormatException("Max age cannot be negative.");
+            showPets(() -> manager.queryPets().species(species).minAge(minAge).maxAge(maxAge).adopted(adopted).list(), !interactive, null);
+        } catch (NumberFormatException e) {
+            if (!interactive) return;
+            JOptionPane.showMessageDialog(this, "Invalid age for filtering: " + e.getMessage(), "Filter Error", JOptionPane.ERROR_MESSAGE);
+            showPets(allPetsQuery);
+        }
+    }
+
+    private void searchAndRefreshPets(boolean interactive) {
+        String searchTerm = searchPetField.getText().trim();
+        if (searchTerm.isEmpty()) {
+            showPets(allPetsQuery, !interactive, null);
+            return;
+        }
+        showPets(() -> manager.searchPetsByName(searchTerm).asList(), !interactive, interactive
+                ? () -> JOptionPane.showMessageDialog(this, "No pets found with that name.", "Search Result", JOptionPane.INFORMATION_MESSAGE)
+                : null);
+    }
+
+    private void showAddAdopterDialog() {
+        JTextField nameField = new JTextField(15);
+        JTextField phoneField = new JTextField(15);
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Name:"));
+        panel.add(nameField);
+        panel.add(new JLabel("Phone:"));
+        panel.add(phoneField);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Add New Adopter", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String name = nameField.getText().trim();
+            String phone = phoneField.getText().trim();
+
+            if (name.isEmpty() || phone.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Name and Phone are required.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            Adopter newAdopter = new Adopter(name, phone);
+            if (manager.addAdopter(newAdopter)) {
+                JOptionPane.showMessageDialog(this, "Adopter added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Adopter with this name already exists.", "Duplicate Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void showEditAdopterDialog(Adopter adopterToEdit) {
+        if (adopterToEdit == null) return;
+
+        JTextField nameField = new JTextField(adopterToEdit.getName(), 15);
+        nameField.setEditable(false); // Name is key, don't allow edit easily
+        JTextField phoneField = new JTextField(adopterToEdit.getPhone(), 15);
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Name (fixed):"));
+        panel.add(nameField);
+        panel.add(new JLabel("Phone:"));
+        panel.add(phoneField);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Edit Adopter", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            String phone = phoneField.getText().trim();
+            if (phone.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Phone cannot be empty.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            manager.updateAdopterPhone(adopterToEdit, phone);
+            JOptionPane.showMessageDialog(this, "Adopter updated.", "Success", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    private void deleteSelectedAdopter() {
+        Adopter selectedAdopter = adopterList.getSelectedValue();
+        if (selectedAdopter == null) return;
+
+        int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to delete " + selectedAdopter.getName() + "?\nThis will also mark their adopted pets as available.", "Confirm Delete", JOptionPane.YES_NO_OPTION);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            if (manager.removeAdopter(selectedAdopter)) {
+                JOptionPane.showMessageDialog(this, "Adopter deleted. Associated pets are now available.", "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Could not delete adopter.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void searchAndRefreshAdopters(boolean interactive) {
+        String searchTerm = searchAdopterField.getText().trim();
+        if (searchTerm.isEmpty()) {
+            showAdopters(allAdoptersQuery, !interactive, null);
+            return;
+        }
+        showAdopters(() -> manager.searchAdoptersByName(searchTerm), !interactive, interactive
+                ? () -> JOptionPane.showMessageDialog(this, "No adopters found with that name.", "Search Result", JOptionPane.INFORMATION_MESSAGE)
+                : null);
+    }
+
+    private void showAdoptPetDialog(Pet petToAdopt) {
+        if (petToAdopt == null || petToAdopt.getAdopterName() != null) {
+            JOptionPane.showMessageDialog(this, "Pet not selected or already adopted.", "Adoption Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        List<Adopter> availableAdopters = manager.getAllAdopters();
+        if (availableAdopters.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No adopters available. Please add an adopter first.", "Adoption Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        Adopter[] adopterArray = availableAdopters.toArray(new Adopter[0]);
+        Adopter selectedAdopter = (Adopter) JOptionPane.showInputDialog(this, "Select an adopter for " + petToAdopt.getName() + ":", "Adopt Pet", JOptionPane.PLAIN_MESSAGE, null, adopterArray, adopterArray[0]);
+
+        if (selectedAdopter != null) {
+            if (manager.adoptPet(petToAdopt, selectedAdopter)) {
+                JOptionPane.showMessageDialog(this, petToAdopt.getName() + " adopted by " + selectedAdopter.getName(), "Adoption Successful", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Adoption failed. Pet might already be adopted.", "Adoption Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void returnSelectedPet(Pet petToReturn) {
+        if (petToReturn == null || petToReturn.getAdopterName() == null) {
+            JOptionPane.showMessageDialog(this, "Pet not selected or not currently adopted.", "Return Error", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to return " + petToReturn.getName() + " to the shelter?", "Confirm Return", JOptionPane.YES_NO_OPTION);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            if (manager.returnPetToShelter(petToReturn)) {
+                JOptionPane.showMessageDialog(this, petToReturn.getName() + " has been returned to the shelter.", "Return Successful", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to return pet.", "Return Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void importPets() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Pets");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        runBulkTransfer("Importing " + file.getName(),
+                progress -> BulkTransfer.importPets(manager, file, BulkTransfer.DEFAULT_BATCH_SIZE, progress),
+                result -> {
+                    String message = "Imported " + result.getAdded() + " pets, skipped " + result.getDuplicates()
+                            + " duplicates and " + result.getErrors().size() + " invalid lines.";
+                    if (result.isCancelled()) message += "\nThe import was cancelled; pets imported before that were kept.";
+                    JOptionPane.showMessageDialog(this, message, "Import", JOptionPane.INFORMATION_MESSAGE);
+                });
+    }
+
+    // Exports whatever the pet list currently shows, re-running its query so the file matches the filter.
+    private void exportShownPets() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Pets (.csv or .json)");
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        BulkTransfer.Format format = file.getName().toLowerCase().endsWith(".json") ? BulkTransfer.Format.JSON : BulkTransfer.Format.CSV;
+        Supplier<List<Pet>> query = petQuery;
+        runBulkTransfer("Exporting " + file.getName(),
+                progress -> BulkTransfer.exportPets(query.get(), file, format, progress),
+                result -> {
+                    String message = result.isCancelled()
+                            ? "The export was cancelled; " + file.getName() + " was not changed."
+                            : "Exported " + result.getProcessed() + " pets to " + file.getName() + ".";
+                    JOptionPane.showMessageDialog(this, message, "Export", JOptionPane.INFORMATION_MESSAGE);
+                });
+    }
+
+    private interface BulkTask {
+        BulkTransfer.Result run(BulkTransfer.Progress progress) throws IOException;
+    }
+
+    // Runs the transfer off the EDT behind a progress dialog; Cancel stops it at the next batch boundary.
+    private void runBulkTransfer(String title, BulkTask task, Consumer<BulkTransfer.Result> onDone) {
+        JDialog dialog = new JDialog(this, title, false);
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        JButton cancelButton = new JButton("Cancel");
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        SwingWorker<BulkTransfer.Result, Void> worker = new SwingWorker<BulkTransfer.Result, Void>() {
+            @Override
+            protected BulkTransfer.Result doInBackground() throws IOException {
+                return task.run(new BulkTransfer.Progress() {
+                    @Override
+                    public void update(long done, long total) {
+                        setProgress(total <= 0 ? 100 : (int) Math.min(100, done * 100 / total));
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return cancelled.get();
+                    }
+                });
+            }
+
+            @Override
+            protected void done() {
+                dialog.dispose();
+                importPetsMenuItem.setEnabled(true);
+                exportPetsMenuItem.setEnabled(true);
+                try {
+                    onDone.accept(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(PetShelterApp.this, title + " failed: " + e.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) progressBar.setValue((Integer) e.getNewValue());
+        });
+        cancelButton.addActionListener(e -> {
+            cancelled.set(true);
+            cancelButton.setEnabled(false);
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(progressBar, BorderLayout.CENTER);
+        panel.add(cancelButton, BorderLayout.EAST);
+        dialog.add(panel);
+        dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        dialog.pack();
+        dialog.setSize(Math.max(dialog.getWidth(), 400), dialog.getHeight());
+        dialog.setLocationRelativeTo(this);
+        importPetsMenuItem.setEnabled(false);
+        exportPetsMenuItem.setEnabled(false);
+        dialog.setVisible(true);
+        worker.execute();
+    }
+}
@@ -0,0 +1,426 @@
+package petshelter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Picks the access path for a PetQuery and runs it; callers hold ShelterManager's read lock for both.
+//
+// Each path yields candidate pets and guarantees some of the criteria; the rest are checked on each candidate.
+// Costs are in candidates visited, with one bitmap word counted as an eighth of a candidate. Selectivities come
+// from the index sizes and statistics, and criteria are assumed independent. When the path already yields the
+// requested order, or none was requested, the walk stops as soon as the page is full.
+final class QueryPlanner {
+    private static final double WORD_COST = 0.125;
+    private static final double SORT_COST = 0.25;
+
+    enum Path {
+        FULL_SCAN("full scan"),
+        BITMAPS("bitmaps"),
+        NAME_INDEX("name index"),
+        ADOPTER("adopter links"),
+        AGE_ORDER("age index in order");
+
+        private final String label;
+
+        Path(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
+
+    private final KeyIndex<Pet> pets;
+    private final KeyIndex<Adopter> adopters;
+    private final Map<Integer, Pet> petsById;
+    private final AdoptionIndex adoptions;
+    private final AgeIndex ageIndex;
+    private final PetBitmapIndex bitmapIndex;
+    private final NgramIndex petNameIndex;
+    private final ShelterStatistics statistics;
+
+    QueryPlanner(KeyIndex<Pet> pets, KeyIndex<Adopter> adopters, Map<Integer, Pet> petsById, AdoptionIndex adoptions,
+                 AgeIndex ageIndex, PetBitmapIndex bitmapIndex, NgramIndex petNameIndex, ShelterStatistics statistics) {
+        this.pets = pets;
+        this.adopters = adopters;
+        this.petsById = petsById;
+        this.adoptions = adoptions;
+        this.ageIndex = ageIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.petNameIndex = petNameIndex;
+        this.statistics = statistics;
+    }
+
+    Plan plan(PetQuery query) {
+        int total = pets.size();
+        List<Criterion> criteria = criteria(query, total);
+        List<Plan> candidates = new ArrayList<>();
+        candidates.add(new Plan(query, Path.FULL_SCAN, null, total, 0, criteria, Collections.emptySet()));
+
+        if (query.species != null || query.minAge != null || query.maxAge != null || query.adopted != null) {
+            Set<Criterion.Kind> covered = new HashSet<>();
+            int bitmaps = 1;
+            double rows = total;
+            for (Criterion criterion : criteria) {
+                if (criterion.kind == Criterion.Kind.SPECIES || criterion.kind == Criterion.Kind.AGE || criterion.kind == Criterion.Kind.ADOPTED) {
+                    covered.add(criterion.kind);
+                    rows *= criterion.selectivity;
+                    // The species bitmap replaces the all-pets bitmap as the starting set.
+                    bitmaps += criterion.kind == Criterion.Kind.AGE ? criterion.bitmaps : criterion.kind == Criterion.Kind.ADOPTED ? 1 : 0;
+                }
+            }
+            candidates.add(new Plan(query, Path.BITMAPS, null, rows, (double) bitmaps * bitmapIndex.words() * WORD_COST, criteria, covered));
+        }
+
+        String term = null;
+        Criterion.Kind termKind = null;
+        double termRows = Double.MAX_VALUE;
+        for (Criterion criterion : criteria) {
+            if ((criterion.kind == Criterion.Kind.NAME_CONTAINS || criterion.kind == Criterion.Kind.NAME_PREFIX) && criterion.rows < termRows) {
+                term = criterion.kind == Criterion.Kind.NAME_CONTAINS ? query.nameContains : query.namePrefix;
+                termKind = criterion.kind;
+                termRows = criterion.rows;
+            }
+        }
+        if (term != null) {
+            // search() already checks containment; a prefix still has to be checked on each hit.
+            Set<Criterion.Kind> covered = termKind == Criterion.Kind.NAME_CONTAINS
+                    ? Collections.singleton(termKind) : Collections.emptySet();
+            candidates.add(new Plan(query, Path.NAME_INDEX, term, termRows, termRows, criteria, covered));
+        }
+
+        if (query.adopterName != null) {
+            Criterion adopter = find(criteria, Criterion.Kind.ADOPTER);
+            candidates.add(new Plan(query, Path.ADOPTER, null, adopter.rows, adopter.rows, criteria, Collections.singleton(Criterion.Kind.ADOPTER)));
+        }
+
+        if (query.sortKey == PetQuery.SortKey.AGE) {
+            Criterion age = find(criteria, Criterion.Kind.AGE);
+            candidates.add(new Plan(query, Path.AGE_ORDER, null, age == null ? total : age.rows, 0, criteria,
+                    age == null ? Collections.emptySet() : Collections.singleton(Criterion.Kind.AGE)));
+        }
+
+        Plan best = candidates.get(0);
+        for (Plan candidate : candidates) {
+            if (candidate.cost < best.cost) best = candidate;
+        }
+        candidates.remove(best);
+        best.rejected = candidates;
+        return best;
+    }
+
+    private List<Criterion> criteria(PetQuery query, int total) {
+        List<Criterion> criteria = new ArrayList<>();
+        if (query.species != null) {
+            String species = query.species;
+            criteria.add(new Criterion(Criterion.Kind.SPECIES, "species = " + species, total,
+                    bitmapIndex.countSpecies(species), pet -> species.equalsIgnoreCase(pet.getSpecies())));
+        }
+        if (query.minAge != null || query.maxAge != null) {
+            int min = query.minAge == null ? Integer.MIN_VALUE : query.minAge;
+            int max = query.maxAge == null ? Integer.MAX_VALUE : query.maxAge;
+            int rows = 0;
+            int ages = 0;
+            if (min <= max) {
+                for (int age : bitmapIndex.agesBetween(min, max)) {
+                    rows += statistics.countAge(age);
+                    ages++;
+                }
+            }
+            Criterion criterion = new Criterion(Criterion.Kind.AGE, "age " + (query.minAge == null ? "" : min) + ".." + (query.maxAge == null ? "" : max),
+                    total, rows, pet -> pet.getAge() >= min && pet.getAge() <= max);
+            criterion.bitmaps = ages;
+            criteria.add(criterion);
+        }
+        if (query.adopted != null) {
+            boolean adopted = query.adopted;
+            criteria.add(new Criterion(Criterion.Kind.ADOPTED, adopted ? "adopted" : "available", total,
+                    adopted ? statistics.getAdoptedCount() : statistics.getAvailableCount(),
+                    pet -> adopted == (pet.getAdopterName() != null && !pet.getAdopterName().isEmpty())));
+        }
+        if (query.healthStatus != null) {
+            String healthStatus = query.healthStatus;
+            int rows = 0;
+            for (Map.Entry<String, Integer> entry : statistics.getHealthStatusCounts().entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(healthStatus)) rows += entry.getValue();
+            }
+            criteria.add(new Criterion(Criterion.Kind.HEALTH, "health = " + healthStatus, total, rows,
+                    pet -> healthStatus.equalsIgnoreCase(pet.getHealthStatus())));
+        }
+        if (query.nameContains != null) {
+            String term = query.nameContains;
+            criteria.add(new Criterion(Criterion.Kind.NAME_CONTAINS, "name contains \"" + term + "\"", total,
+                    petNameIndex.estimate(term), pet -> containsIgnoreCase(pet.getName(), term)));
+        }
+        if (query.namePrefix != null) {
+            String prefix = query.namePrefix;
+            criteria.add(new Criterion(Criterion.Kind.NAME_PREFIX, "name starts with \"" + prefix + "\"", total,
+                    petNameIndex.estimate(prefix), pet -> pet.getName().regionMatches(true, 0, prefix, 0, prefix.length())));
+        }
+        if (query.adopterName != null) {
+            String adopterName = query.adopterName;
+            Adopter adopter = adopters.get(adopterName, null);
+            criteria.add(new Criterion(Criterion.Kind.ADOPTER, "adopted by " + adopterName, total,
+                    adopter == null ? 0 : adoptions.petsOf(adopter.getId()).size(), pet -> adopterName.equalsIgnoreCase(pet.getAdopterName())));
+        }
+        return criteria;
+    }
+
+    private static Criterion find(List<Criterion> criteria, Criterion.Kind kind) {
+        for (Criterion criterion : criteria) {
+            if (criterion.kind == kind) return criterion;
+        }
+        return null;
+    }
+
+    private static boolean containsIgnoreCase(String text, String term) {
+        for (int i = 0; i + term.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, term, 0, term.length())) return true;
+        }
+        return false;
+    }
+
+    private static final class Criterion {
+        enum Kind { SPECIES, AGE, ADOPTED, HEALTH, NAME_CONTAINS, NAME_PREFIX, ADOPTER }
+
+        final Kind kind;
+        final String description;
+        final double rows;
+        final double selectivity;
+        final Predicate<Pet> test;
+        int bitmaps;
+
+        Criterion(Kind kind, String description, int total, int rows, Predicate<Pet> test) {
+            this.kind = kind;
+            this.description = description;
+            this.rows = rows;
+            this.selectivity = total == 0 ? 0 : Math.min(1.0, (double) rows / total);
+            this.test = test;
+        }
+    }
+
+    final class Plan {
+        private final PetQuery query;
+        private final Path path;
+        private final String term;
+        private final double rows;
+        private final double matches;
+        private final double cost;
+        private final boolean ordered;
+        private final List<Criterion> residual = new ArrayList<>();
+        private List<Plan> rejected = Collections.emptyList();
+
+        Plan(PetQuery query, Path path, String term, double rows, double setupCost, List<Criterion> criteria, Set<Criterion.Kind> covered) {
+            this.query = query;
+            this.path = path;
+            this.term = term;
+            this.rows = rows;
+            double selectivity = 1;
+            for (Criterion criterion : criteria) {
+                if (!covered.contains(criterion.kind)) {
+                    residual.add(criterion);
+                    // The name index hits for a prefix are rechecked, but their count already is the estimate.
+                    if (path != Path.NAME_INDEX || criterion.kind != Criterion.Kind.NAME_PREFIX || !term.equals(query.namePrefix)) {
+                        selectivity *= criterion.selectivity;
+                    }
+                }
+            }
+            this.matches = rows * selectivity;
+            this.ordered = query.sortKey == null || path == Path.AGE_ORDER;
+            long wanted = wanted();
+            double visited = rows;
+            if (ordered && wanted < Long.MAX_VALUE && selectivity > 0) {
+                visited = Math.min(rows, wanted / selectivity);
+            }
+            double sortCost = ordered ? 0 : matches * log2(Math.min(matches, wanted) + 2) * SORT_COST;
+            this.cost = setupCost + visited + sortCost;
+        }
+
+        List<Pet> execute() {
+            if (query.limit == 0) return new ArrayList<>();
+            Page page = new Page(ordered ? null : query.sortKey.comparator(query.ascending), query.offset, wanted());
+            visit(pet -> !matchesResidual(pet) || page.offer(pet));
+            return page.result();
+        }
+
+        // The page and the number of matches from one walk; the page stops filling once it is full.
+        PetQuery.Result executeWithTotal() {
+            Page page = new Page(ordered ? null : query.sortKey.comparator(query.ascending), query.offset, wanted());
+            int[] total = new int[1];
+            boolean[] full = {query.limit == 0};
+            visit(pet -> {
+                if (matchesResidual(pet)) {
+                    total[0]++;
+                    if (!full[0]) full[0] = !page.offer(pet);
+                }
+                return true;
+            });
+            return new PetQuery.Result(query.limit == 0 ? new ArrayList<>() : page.result(), total[0]);
+        }
+
+        // Every match, ignoring the offset and limit.
+        int count() {
+            int[] count = new int[1];
+            visit(pet -> {
+                if (matchesResidual(pet)) count[0]++;
+                return true;
+            });
+            return count[0];
+        }
+
+        // Offers each candidate the path yields to the visitor until it returns false.
+        private void visit(Predicate<Pet> visitor) {
+            switch (path) {
+                case BITMAPS: {
+                    BitSet bits = bitmapIndex.select(query.species, query.minAge, query.maxAge, query.adopted);
+                    for (int row = bits.nextSetBit(0); row >= 0; row = bits.nextSetBit(row + 1)) {
+                        if (!visitor.test(pets.getBySlot(row))) break;
+                    }
+                    break;
+                }
+                case NAME_INDEX:
+                    visitRows(petNameIndex.search(term), visitor);
+                    break;
+                case ADOPTER: {
+                    Adopter adopter = adopters.get(query.adopterName, null);
+                    if (adopter == null) break;
+                    Set<Integer> ids = adoptions.petsOf(adopter.getId());
+                    int[] rows = new int[ids.size()];
+                    int count = 0;
+                    for (int id : ids) {
+                        int row = pets.slotOf(petsById.get(id));
+                        if (row >= 0) rows[count++] = row;
+                    }
+                    rows = Arrays.copyOf(rows, count);
+                    Arrays.sort(rows);
+                    visitRows(rows, visitor);
+                    break;
+                }
+                case AGE_ORDER:
+                    ageIndex.visit(query.ascending, query.minAge == null ? Integer.MIN_VALUE : query.minAge,
+                            query.maxAge == null ? Integer.MAX_VALUE : query.maxAge, visitor);
+                    break;
+                default:
+                    for (int row = 0, limit = pets.slotLimit(); row < limit; row++) {
+                        Pet pet = pets.getBySlot(row);
+                        if (pet != null && !visitor.test(pet)) break;
+                    }
+            }
+        }
+
+        private void visitRows(int[] rows, Predicate<Pet> visitor) {
+            for (int row : rows) {
+                if (!visitor.test(pets.getBySlot(row))) return;
+            }
+        }
+
+        private boolean matchesResidual(Pet pet) {
+            for (Criterion criterion : residual) {
+                if (!criterion.test.test(pet)) return false;
+            }
+            return true;
+        }
+
+        private long wanted() {
+            return query.limit == Integer.MAX_VALUE ? Long.MAX_VALUE : (long) query.offset + query.limit;
+        }
+
+        String describe() {
+            StringBuilder out = new StringBuilder("access: ").append(label());
+            out.append(String.format(" (~%.0f candidates, cost %.0f)%n", rows, cost));
+            out.append("filter: ");
+            if (residual.isEmpty()) {
+                out.append("none");
+            }
+            for (int i = 0; i < residual.size(); i++) {
+                if (i > 0) out.append(", ");
+                out.append(residual.get(i).description);
+            }
+            out.append(String.format(" (~%.0f matches)%n", matches));
+            out.append("order: ");
+            if (query.sortKey == null) {
+                out.append("index order");
+            } else {
+                out.append(query.sortKey.name().toLowerCase()).append(query.ascending ? " ascending" : " descending");
+                out.append(ordered ? ", from the index" : wanted() == Long.MAX_VALUE ? ", full sort" : ", top " + wanted() + " by heap");
+            }
+            out.append(System.lineSeparator());
+            if (wanted() != Long.MAX_VALUE) {
+                out.append("limit: ").append(query.limit).append(" after ").append(query.offset)
+                        .append(ordered ? ", stops when full" : ", reads every candidate").append(System.lineSeparator());
+            }
+            out.append("rejected:");
+            if (rejected.isEmpty()) {
+                out.append(" none");
+            }
+            for (Plan plan : rejected) {
+                out.append(String.format(" %s (cost %.0f);", plan.label(), plan.cost));
+            }
+            return out.toString();
+        }
+
+        private String label() {
+            if (path == Path.NAME_INDEX) return path.label + " \"" + term + "\"";
+            if (path == Path.ADOPTER) return path.label + " of " + query.adopterName;
+            return path.label;
+        }
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    // Skips the offset and keeps at most wanted pets; with an order, a heap keeps the first wanted ones seen.
+    private static final class Page {
+        private final Comparator<Pet> order;
+        private final int offset;
+        private final long wanted;
+        private final List<Pet> pets = new ArrayList<>();
+        private final PriorityQueue<Pet> heap;
+        private long seen;
+
+        Page(Comparator<Pet> order, int offset, long wanted) {
+            this.order = order;
+            this.offset = offset;
+            this.wanted = wanted;
+            this.heap = order != null && wanted != Long.MAX_VALUE
+                    ? new PriorityQueue<>((int) Math.min(wanted, 1 << 16) + 1, order.reversed()) : null;
+        }
+
+        // False once nothing more can change the result.
+        boolean offer(Pet pet) {
+            if (heap != null) {
+                heap.add(pet);
+                if (heap.size() > wanted) heap.poll();
+                return true;
+            }
+            if (order == null && seen++ < offset) return true;
+            pets.add(pet);
+            return order != null || pets.size() < wanted - offset;
+        }
+
+        List<Pet> result() {
+            List<Pet> sorted = pets;
+            if (heap != null) {
+                sorted = new ArrayList<>(heap);
+                sorted.sort(order);
+            } else if (order != null) {
+                sorted.sort(order);
+            } else {
+                return pets;
+            }
+            int from = Math.min(offset, sorted.size());
+            return new ArrayList<>(sorted.subList(from, sorted.size()));
+        }
+    }
+}
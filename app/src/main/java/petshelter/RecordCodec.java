@@ -0,0 +1,229 @@
+package petshelter;
+
+import java.util.List;
+
+// Reads and writes pets.txt / adopters.txt records straight from and into caller-owned buffers.
+// A field containing a comma or line break, starting with a quote, or one that would read back as a
+// "null"/"none" marker is written in double quotes, with "" for a quote and \n, \r, \\ escapes inside.
+// A null health status, phone or adopter name is written as an unquoted null.
+// Adopted-pet identifiers are separated by ';', written as \; (and a backslash as \\) inside an identifier.
+// Trailing ID columns (pet id and adopter id; adopter id) are optional, so files written before IDs existed still load.
+// One instance keeps a scratch buffer and must not be shared between threads. It also interns the species and
+// health statuses it decodes, so the pets of one load share a String per distinct value until a manager stores them.
+public class RecordCodec {
+    private static final String NULL_MARKER = "null";
+    private static final String EMPTY_LIST_MARKER = "none";
+
+    private final SymbolTable species = new SymbolTable();
+    private final SymbolTable healthStatuses = new SymbolTable();
+    private final StringBuilder field = new StringBuilder(64);
+    private CharSequence text;
+    private int position;
+    private int end;
+    private boolean fieldQuoted;
+    private boolean exhausted;
+
+    public Pet decodePet(CharSequence line, int start, int lineEnd) {
+        reset(line, start, lineEnd);
+        if (!nextField()) return null;
+        String petSpecies = species.intern(field.toString());
+        if (!nextField()) return null;
+        String name = field.toString();
+        if (!nextField()) return null;
+        int age = fieldAsInt();
+        if (!nextField()) return null;
+        String healthStatus = isMarker(NULL_MARKER) ? null : healthStatuses.intern(field.toString());
+
+        Pet pet = new Pet(petSpecies, name, age, healthStatus);
+        if (!nextField()) return pet;
+        if ((fieldQuoted || field.length() > 0) && !isMarker(NULL_MARKER)) {
+            pet.setAdopterName(field.toString());
+        }
+        if (nextField() && field.length() > 0) {
+            pet.setId(fieldAsInt());
+        }
+        if (nextField() && field.length() > 0) {
+            pet.setAdopterId(fieldAsInt());
+        }
+        return pet;
+    }
+
+    public Adopter decodeAdopter(CharSequence line, int start, int lineEnd) {
+        reset(line, start, lineEnd);
+        if (!nextField()) return null;
+        String name = field.toString();
+        if (!nextField()) return null;
+        Adopter adopter = new Adopter(name, isMarker(NULL_MARKER) ? null : field.toString());
+
+        if (!nextField()) return adopter;
+        if (field.length() > 0 && !isMarker(EMPTY_LIST_MARKER)) {
+            StringBuilder item = new StringBuilder();
+            for (int i = 0; i <= field.length(); i++) {
+                char c = i < field.length() ? field.charAt(i) : ';';
+                if (c == '\\' && i + 1 < field.length() && (field.charAt(i + 1) == ';' || field.charAt(i + 1) == '\\')) {
+                    item.append(field.charAt(++i));
+                } else if (c != ';') {
+                    item.append(c);
+                } else {
+                    if (!isBlank(item)) {
+                        adopter.addAdoptedPetName(item.toString());
+                    }
+                    item.setLength(0);
+                }
+            }
+        }
+        if (nextField() && field.length() > 0) {
+            adopter.setId(fieldAsInt());
+        }
+        return adopter;
+    }
+
+    public void encodePet(Pet pet, StringBuilder out) {
+        appendField(out, pet.getSpecies(), false);
+        out.append(',');
+        appendField(out, pet.getName(), false);
+        out.append(',').append(pet.getAge()).append(',');
+        appendField(out, pet.getHealthStatus(), true);
+        out.append(',');
+        if (pet.getAdopterName() == null) {
+            out.append(NULL_MARKER);
+        } else {
+            appendField(out, pet.getAdopterName(), true);
+        }
+        out.append(',').append(pet.getId()).append(',').append(pet.getAdopterId());
+    }
+
+    public void encodeAdopter(Adopter adopter, StringBuilder out) {
+        appendField(out, adopter.getName(), false);
+        out.append(',');
+        appendField(out, adopter.getPhone(), true);
+        out.append(',');
+        List<String> adopted = adopter.getAdoptedPetNames();
+        if (adopted.isEmpty()) {
+            out.append(EMPTY_LIST_MARKER);
+        } else {
+            field.setLength(0);
+            for (int i = 0; i < adopted.size(); i++) {
+                if (i > 0) field.append(';');
+                String item = adopted.get(i);
+                for (int j = 0; j < item.length(); j++) {
+                    char c = item.charAt(j);
+                    if (c == ';' || c == '\\') field.append('\\');
+                    field.append(c);
+                }
+            }
+            appendField(out, field, true);
+        }
+        out.append(',').append(adopter.getId());
+    }
+
+    private void reset(CharSequence line, int start, int lineEnd) {
+        text = line;
+        position = start;
+        end = lineEnd;
+        exhausted = false;
+    }
+
+    private boolean nextField() {
+        field.setLength(0);
+        fieldQuoted = false;
+        if (exhausted) return false;
+        if (position < end && text.charAt(position) == '"') {
+            fieldQuoted = true;
+            position++;
+            while (position < end) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    if (position < end && text.charAt(position) == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        break;
+                    }
+                } else if (c == '\\' && position < end) {
+                    char escaped = text.charAt(position++);
+                    field.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+                } else {
+                    field.append(c);
+                }
+            }
+            while (position < end && text.charAt(position) != ',') {
+                position++;
+            }
+        } else {
+            while (position < end && text.charAt(position) != ',') {
+                field.append(text.charAt(position++));
+            }
+        }
+        if (position < end) {
+            position++;
+        } else {
+            exhausted = true;
+        }
+        return true;
+    }
+
+    private int fieldAsInt() {
+        int length = field.length();
+        int i = 0;
+        boolean negative = length > 0 && field.charAt(0) == '-';
+        if (negative || (length > 0 && field.charAt(0) == '+')) i++;
+        if (i == length) throw new NumberFormatException("For input string: \"" + field + "\"");
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = Character.digit(field.charAt(i), 10);
+            value = value * 10 + digit;
+            if (digit < 0 || value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + field + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw new NumberFormatException("For input string: \"" + field + "\"");
+        return (int) value;
+    }
+
+    private boolean isMarker(String marker) {
+        return !fieldQuoted && field.length() == marker.length() && marker.contentEquals(field);
+    }
+
+    private static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static void appendField(StringBuilder out, CharSequence value, boolean markerField) {
+        if (value == null) {
+            out.append(NULL_MARKER);
+            return;
+        }
+        if (!needsQuotes(value, markerField)) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\"\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                default: out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static boolean needsQuotes(CharSequence value, boolean markerField) {
+        if (value.length() == 0) return markerField;
+        if (value.charAt(0) == '"') return true;
+        if (markerField && (NULL_MARKER.contentEquals(value) || EMPTY_LIST_MARKER.contentEquals(value))) return true;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package petshelter;
+
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// A list model that wraps a result list without copying it, and renders each row's text at most once
+// per refresh. A refresh fires one event for the whole list instead of one per element.
+public class RecordListModel<T> extends AbstractListModel<T> {
+    private final Function<? super T, String> formatter;
+    private List<? extends T> records = Collections.emptyList();
+    private String[] text = new String[0];
+
+    public RecordListModel(Function<? super T, String> formatter) {
+        this.formatter = formatter;
+    }
+
+    public void setRecords(List<? extends T> newRecords) {
+        int oldSize = records.size();
+        records = newRecords;
+        text = new String[newRecords.size()];
+        int newSize = newRecords.size();
+        if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        }
+        if (Math.min(oldSize, newSize) > 0) {
+            fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+        }
+        if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return records.size();
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        return records.get(index);
+    }
+
+    public String textAt(int index) {
+        String cached = text[index];
+        if (cached == null) {
+            cached = formatter.apply(records.get(index));
+            text[index] = cached;
+        }
+        return cached;
+    }
+
+    // The prototype fixes the row height, so JList never measures rows outside the viewport.
+    public void install(JList<T> list, T prototype) {
+        list.setModel(this);
+        list.setCellRenderer(renderer());
+        list.setPrototypeCellValue(prototype);
+    }
+
+    private ListCellRenderer<T> renderer() {
+        DefaultListCellRenderer delegate = new DefaultListCellRenderer();
+        return (list, value, index, isSelected, cellHasFocus) -> {
+            String label = index >= 0 && index < text.length && records.get(index) == value
+                    ? textAt(index) : formatter.apply(value);
+            return delegate.getListCellRendererComponent(list, label, index, isSelected, cellHasFocus);
+        };
+    }
+}
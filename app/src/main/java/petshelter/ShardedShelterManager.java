@@ -0,0 +1,409 @@
+package petshelter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Several physical shelters, each an independent ShelterManager with its own directory under the root.
+//
+// Writes go to one shelter: the one named by the caller, or for pets the one their species hashes to and for
+// adopters the one their name hashes to. Pet keys (species and name) and adopter names are unique across all
+// shelters, so every record has exactly one home. Queries run on every shelter in parallel and are merged.
+//
+// A pet adopted by someone registered at another shelter moves to the adopter's shelter: it is added there, removed
+// from its old shelter only if still available, and then adopted. If the process stops part-way the pet can be left
+// in both shelters, never in neither; any failure after the copy moves it back. Opening the shelters drops such
+// leftovers, keeping the adopted copy.
+public class ShardedShelterManager {
+    private static final int KEY_LOCK_STRIPES = 64;
+    private static final Comparator<Pet> YOUNGEST_FIRST = Comparator.comparingInt(Pet::getAge).thenComparing(AgeIndex.SPECIES_THEN_NAME);
+    private static final Comparator<Pet> OLDEST_FIRST = Comparator.comparingInt(Pet::getAge).reversed().thenComparing(AgeIndex.SPECIES_THEN_NAME);
+
+    private final List<String> names;
+    private final List<ShelterManager> shelters;
+    private final Map<String, ShelterManager> sheltersByName = new LinkedHashMap<>();
+    private final ExecutorService queryPool;
+    // Serialize the uniqueness check and insert, and cross-shelter moves, per key.
+    private final Object[] petKeyLocks = new Object[KEY_LOCK_STRIPES];
+    private final Object[] adopterKeyLocks = new Object[KEY_LOCK_STRIPES];
+
+    public ShardedShelterManager(File rootDirectory, List<String> shelterNames) {
+        this(rootDirectory, shelterNames, 32, 50, 30_000);
+    }
+
+    public ShardedShelterManager(File rootDirectory, List<String> shelterNames, int journalSyncBatchSize,
+                                 long journalSyncIntervalMillis, long autosaveIntervalMillis) {
+        if (shelterNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one shelter is required");
+        }
+        this.names = Collections.unmodifiableList(new ArrayList<>(shelterNames));
+        this.shelters = new ArrayList<>(names.size());
+        for (String name : names) {
+            File directory = new File(rootDirectory, name);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IllegalArgumentException("Could not create " + directory);
+            }
+            ShelterManager shelter = new ShelterManager(directory, journalSyncBatchSize, journalSyncIntervalMillis, autosaveIntervalMillis);
+            if (sheltersByName.put(name, shelter) != null) {
+                throw new IllegalArgumentException("Duplicate shelter " + name);
+            }
+            shelters.add(shelter);
+        }
+        for (int i = 0; i < KEY_LOCK_STRIPES; i++) {
+            petKeyLocks[i] = new Object();
+            adopterKeyLocks[i] = new Object();
+        }
+        reconcile();
+        AtomicInteger threads = new AtomicInteger();
+        queryPool = Executors.newFixedThreadPool(names.size(), r -> {
+            Thread thread = new Thread(r, "shelter-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<String> getShelterNames() {
+        return names;
+    }
+
+    // The partition itself, for per-shelter views, listeners and metrics; writes through it bypass the
+    // cross-shelter uniqueness checks.
+    public ShelterManager getShelter(String name) {
+        ShelterManager shelter = sheltersByName.get(name);
+        if (shelter == null) {
+            throw new IllegalArgumentException("No shelter named " + name);
+        }
+        return shelter;
+    }
+
+    public String shelterOf(Pet pet) {
+        int index = indexOf(pet);
+        return index < 0 ? null : names.get(index);
+    }
+
+    public String shelterOf(Adopter adopter) {
+        int index = indexOf(adopter);
+        return index < 0 ? null : names.get(index);
+    }
+
+    public boolean addPet(Pet pet) {
+        return addPet(names.get(partition(pet.getSpecies())), pet);
+    }
+
+    public boolean addPet(String shelter, Pet pet) {
+        ShelterManager target = getShelter(shelter);
+        synchronized (petKeyLock(pet)) {
+            return findPetByNameAndSpecies(pet.getName(), pet.getSpecies()) == null && target.addPet(pet);
+        }
+    }
+
+    // The key lock keeps these from landing on the copy a concurrent cross-shelter adoption is moving.
+    public boolean removePet(Pet pet) {
+        synchronized (petKeyLock(pet)) {
+            ShelterManager home = homeOf(pet);
+            return home != null && home.removePet(pet);
+        }
+    }
+
+    public void updatePetHealth(Pet pet, String newHealthStatus) {
+        synchronized (petKeyLock(pet)) {
+            ShelterManager home = homeOf(pet);
+            if (home != null) home.updatePetHealth(pet, newHealthStatus);
+        }
+    }
+
+    public void updatePetAge(Pet pet, int newAge) {
+        synchronized (petKeyLock(pet)) {
+            ShelterManager home = homeOf(pet);
+            if (home != null) home.updatePetAge(pet, newAge);
+        }
+    }
+
+    // Looks in the shelter the species routes to first, then in the others for pets placed or moved elsewhere.
+    public Pet findPetByNameAndSpecies(String name, String species) {
+        int routed = partition(species);
+        Pet pet = shelters.get(routed).findPetByNameAndSpecies(name, species);
+        for (int i = 0; pet == null && i < shelters.size(); i++) {
+            if (i != routed) pet = shelters.get(i).findPetByNameAndSpecies(name, species);
+        }
+        return pet;
+    }
+
+    public boolean addAdopter(Adopter adopter) {
+        return addAdopter(names.get(partition(adopter.getName())), adopter);
+    }
+
+    public boolean addAdopter(String shelter, Adopter adopter) {
+        ShelterManager target = getShelter(shelter);
+        synchronized (adopterKeyLock(adopter.getName())) {
+            return findAdopterByName(adopter.getName()) == null && target.addAdopter(adopter);
+        }
+    }
+
+    public void updateAdopterPhone(Adopter adopter, String newPhone) {
+        int index = indexOf(adopter);
+        if (index >= 0) shelters.get(index).updateAdopterPhone(adopter, newPhone);
+    }
+
+    // Cross-shelter adoptions move the pet into the adopter's shelter, so an adopter's pets all live with it.
+    public boolean removeAdopter(Adopter adopter) {
+        int index = indexOf(adopter);
+        return index >= 0 && shelters.get(index).removeAdopter(adopter);
+    }
+
+    public Adopter findAdopterByName(String name) {
+        int routed = partition(name);
+        Adopter adopter = shelters.get(routed).findAdopterByName(name);
+        for (int i = 0; adopter == null && i < shelters.size(); i++) {
+            if (i != routed) adopter = shelters.get(i).findAdopterByName(name);
+        }
+        return adopter;
+    }
+
+    public boolean adoptPet(Pet pet, Adopter adopter) {
+        synchronized (petKeyLock(pet)) {
+            int from = indexOf(pet);
+            int to = indexOf(adopter);
+            if (from < 0 || to < 0) {
+                return false;
+            }
+            if (from == to) {
+                return shelters.get(from).adoptPet(pet, adopter);
+            }
+            return moveAndAdopt(shelters.get(from), shelters.get(to), findPetByNameAndSpecies(pet.getName(), pet.getSpecies()), adopter);
+        }
+    }
+
+    // Caller holds the pet's key lock. The copy gets a new ID from the adopter's shelter.
+    private boolean moveAndAdopt(ShelterManager from, ShelterManager to, Pet pet, Adopter adopter) {
+        if (pet == null || pet.getAdopterName() != null) {
+            return false;
+        }
+        Pet copy = new Pet(pet.getSpecies(), pet.getName(), pet.getAge(), pet.getHealthStatus());
+        if (!to.addPet(copy)) {
+            return false;
+        }
+        if (!from.removeAvailablePet(pet)) {
+            to.removePet(copy);
+            return false;
+        }
+        if (!to.adoptPet(copy, adopter)) {
+            to.removePet(copy);
+            Pet restored = new Pet(pet.getSpecies(), pet.getName(), pet.getAge(), pet.getHealthStatus());
+            restored.setId(pet.getId());
+            if (!from.addPet(restored)) {
+                System.err.println("Could not move " + pet.getSpecies() + " " + pet.getName() + " back to " + names.get(shelters.indexOf(from)));
+            } else if (restored.getId() != pet.getId()) {
+                System.err.println(pet.getSpecies() + " " + pet.getName() + " moved back with ID " + restored.getId() + " instead of " + pet.getId());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // A pet in two shelters is left over from a cross-shelter adoption that stopped part-way. The adopted copy is
+    // kept; if neither is adopted the adoption never happened, and the copy lookups already find is kept.
+    private void reconcile() {
+        for (ShelterManager shelter : shelters) {
+            for (Pet pet : shelter.getAllPets()) {
+                int keep = indexOf(pet);
+                int copies = 0;
+                for (int i = 0; i < shelters.size(); i++) {
+                    Pet copy = shelters.get(i).findPetByNameAndSpecies(pet.getName(), pet.getSpecies());
+                    if (copy == null) continue;
+                    copies++;
+                    if (copy.getAdopterName() != null) keep = i;
+                }
+                if (copies < 2) continue;
+                for (int i = 0; i < shelters.size(); i++) {
+                    if (i == keep || shelters.get(i).findPetByNameAndSpecies(pet.getName(), pet.getSpecies()) == null) continue;
+                    if (shelters.get(i).removeAvailablePet(pet)) {
+                        System.err.println("Dropped duplicate " + pet.getSpecies() + " " + pet.getName() + " from " + names.get(i)
+                                + ", kept the copy in " + names.get(keep));
+                    } else {
+                        System.err.println(pet.getSpecies() + " " + pet.getName() + " is adopted in both " + names.get(i)
+                                + " and " + names.get(keep));
+                    }
+                }
+            }
+        }
+    }
+
+    // The pet stays in the shelter it was adopted from, which after a cross-shelter adoption is the adopter's.
+    public boolean returnPetToShelter(Pet pet) {
+        ShelterManager home = homeOf(pet);
+        return home != null && home.returnPetToShelter(pet);
+    }
+
+    public List<Pet> getAllPets() {
+        return concat(ShelterManager::getAllPets);
+    }
+
+    public List<Adopter> getAllAdopters() {
+        return concat(ShelterManager::getAllAdopters);
+    }
+
+    public List<Pet> filterPetsBySpecies(String species) {
+        return concat(shelter -> shelter.filterPetsBySpecies(species));
+    }
+
+    public List<Pet> filterPetsByAge(int minAge, int maxAge) {
+        return concat(shelter -> shelter.filterPetsByAge(minAge, maxAge));
+    }
+
+    public List<Pet> searchPetsByName(String term) {
+        return concat(shelter -> shelter.searchPetsByName(term).asList());
+    }
+
+    public List<Adopter> searchAdoptersByName(String term) {
+        return concat(shelter -> shelter.searchAdoptersByName(term));
+    }
+
+    public List<Pet> sortPetsByAge() {
+        return sortPetsByAge(true);
+    }
+
+    // Each shelter sorts its own pets; the sorted runs are merged, keeping the single-shelter order within an age.
+    public List<Pet> sortPetsByAge(boolean ascending) {
+        List<List<Pet>> runs = fanOut(shelter -> shelter.sortPetsByAge(ascending));
+        Comparator<Pet> order = ascending ? YOUNGEST_FIRST : OLDEST_FIRST;
+        int total = 0;
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(runs.size(), (a, b) -> order.compare(a.head(), b.head()));
+        for (List<Pet> run : runs) {
+            total += run.size();
+            if (!run.isEmpty()) heads.add(new Cursor(run));
+        }
+        List<Pet> result = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            result.add(cursor.head());
+            if (cursor.advance()) heads.add(cursor);
+        }
+        return result;
+    }
+
+    private static final class Cursor {
+        private final List<Pet> run;
+        private int position;
+
+        Cursor(List<Pet> run) {
+            this.run = run;
+        }
+
+        Pet head() {
+            return run.get(position);
+        }
+
+        boolean advance() {
+            return ++position < run.size();
+        }
+    }
+
+    public Map<String, Integer> countPetsBySpecies() {
+        Map<String, Integer> counts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map<String, Integer> shelterCounts : fanOut(ShelterManager::countPetsBySpecies)) {
+            for (Map.Entry<String, Integer> entry : shelterCounts.entrySet()) {
+                counts.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    public List<String> getUniqueSpecies() {
+        return new ArrayList<>(countPetsBySpecies().keySet());
+    }
+
+    public void saveData() {
+        fanOut(shelter -> {
+            shelter.saveData();
+            return null;
+        });
+    }
+
+    public void close() {
+        queryPool.shutdown();
+        for (ShelterManager shelter : shelters) {
+            shelter.close();
+        }
+    }
+
+    private <T> List<T> fanOut(Function<ShelterManager, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shelters.size());
+        for (ShelterManager shelter : shelters) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shelter), queryPool));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private <T> List<T> concat(Function<ShelterManager, List<T>> query) {
+        List<List<T>> parts = fanOut(query);
+        int total = 0;
+        for (List<T> part : parts) {
+            total += part.size();
+        }
+        List<T> result = new ArrayList<>(total);
+        for (List<T> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    // Keys are unique across shelters, so the shelter holding the key holds the pet; callers may pass a record an update has since replaced.
+    private int indexOf(Pet pet) {
+        int routed = partition(pet.getSpecies());
+        if (shelters.get(routed).findPetByNameAndSpecies(pet.getName(), pet.getSpecies()) != null) {
+            return routed;
+        }
+        for (int i = 0; i < shelters.size(); i++) {
+            if (i != routed && shelters.get(i).findPetByNameAndSpecies(pet.getName(), pet.getSpecies()) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(Adopter adopter) {
+        int routed = partition(adopter.getName());
+        if (shelters.get(routed).findAdopterByName(adopter.getName()) != null) {
+            return routed;
+        }
+        for (int i = 0; i < shelters.size(); i++) {
+            if (i != routed && shelters.get(i).findAdopterByName(adopter.getName()) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ShelterManager homeOf(Pet pet) {
+        int index = indexOf(pet);
+        return index < 0 ? null : shelters.get(index);
+    }
+
+    private int partition(String key) {
+        return Math.floorMod(KeyIndex.hashIgnoreCase(key), shelters.size());
+    }
+
+    private Object petKeyLock(Pet pet) {
+        return petKeyLocks[Math.floorMod(KeyIndex.hash(pet.getSpecies(), pet.getName()), KEY_LOCK_STRIPES)];
+    }
+
+    private Object adopterKeyLock(String name) {
+        return adopterKeyLocks[Math.floorMod(KeyIndex.hashIgnoreCase(name), KEY_LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,39 @@
+package petshelter;
+
+// One change made by a ShelterManager mutation; listeners receive every event of a write as one batch.
+public final class ShelterEvent {
+    public enum Type {
+        PET_ADDED, PET_REMOVED, PET_UPDATED,
+        ADOPTER_ADDED, ADOPTER_REMOVED, ADOPTER_UPDATED,
+        ADOPTION_LINKED, ADOPTION_UNLINKED
+    }
+
+    private final Type type;
+    private final Pet pet;
+    private final Adopter adopter;
+
+    ShelterEvent(Type type, Pet pet, Adopter adopter) {
+        this.type = type;
+        this.pet = pet;
+        this.adopter = adopter;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // Null for adopter-only events.
+    public Pet getPet() {
+        return pet;
+    }
+
+    // Null for pet-only events, and for an unlink whose adopter no longer exists.
+    public Adopter getAdopter() {
+        return adopter;
+    }
+
+    @Override
+    public String toString() {
+        return type + (pet == null ? "" : " " + pet.getSpecies() + ":" + pet.getName()) + (adopter == null ? "" : " " + adopter.getName());
+    }
+}
@@ -0,0 +1,8 @@
+package petshelter;
+
+import java.util.List;
+
+public interface ShelterListener {
+    // Called on the executor given at subscription, once per write, with the events in the order they happened.
+    void shelterChanged(List<ShelterEvent> events);
+}
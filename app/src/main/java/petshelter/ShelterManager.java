@@ -0,0 +1,1195 @@
+package petshelter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+public class ShelterManager {
+    private static final String PETS_FILE = "pets.txt";
+    private static final String ADOPTERS_FILE = "adopters.txt";
+    private static final String CHECKPOINT_FILE = "shelter.checkpoint";
+    private static final String SNAPSHOT_FILE = "shelter.dat";
+    private static final int DEFAULT_SYNC_BATCH_SIZE = 32;
+    private static final long DEFAULT_SYNC_INTERVAL_MILLIS = 50;
+    private static final long DEFAULT_AUTOSAVE_INTERVAL_MILLIS = 30_000;
+    private static final int MIN_COMPACTION_RECORDS = 10_000;
+    private static final int MIN_SNAPSHOT_HOLES = 1024;
+    private final File dataDirectory;
+    private final KeyIndex<Pet> pets;
+    private final KeyIndex<Adopter> adopters;
+    private final AgeIndex ageIndex;
+    private final PetBitmapIndex bitmapIndex;
+    private final NgramIndex petNameIndex;
+    private final NgramIndex adopterNameIndex;
+    private final QueryPlanner planner;
+    private final Map<Integer, Pet> petsById = new HashMap<>();
+    private final Map<Integer, Adopter> adoptersById = new HashMap<>();
+    private final AdoptionIndex adoptions = new AdoptionIndex();
+    private final SymbolTable speciesSymbols = new SymbolTable();
+    private final SymbolTable healthSymbols = new SymbolTable();
+    private final ShelterStatistics statistics = new ShelterStatistics(speciesSymbols, healthSymbols);
+    private final PetColumns columns = new PetColumns(speciesSymbols, healthSymbols);
+    private final ShelterMetrics metrics = new ShelterMetrics();
+    private int lastPetId;
+    private int lastAdopterId;
+    private final ScheduledExecutorService persistence;
+    private final Journal journal;
+    private volatile Future<?> pendingCompaction;
+    private final StampedLock lock = new StampedLock();
+    private boolean replaying;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private List<ShelterEvent> pendingEvents = new ArrayList<>();
+    // Batches queued under the write lock in commit order, handed to the executors by one thread at a time.
+    private final Queue<List<ShelterEvent>> outbox = new ConcurrentLinkedQueue<>();
+    private final Object dispatchLock = new Object();
+    // The versioned records behind snapshot(). Positions are in insertion order and indexed by KeyIndex slot;
+    // records changed by the current write are put into the vectors when it finishes.
+    private volatile ShelterSnapshot snapshot = new ShelterSnapshot(0, PersistentVector.empty(), PersistentVector.empty());
+    private PersistentVector<Pet> petVersions = PersistentVector.empty();
+    private PersistentVector<Adopter> adopterVersions = PersistentVector.empty();
+    private int[] petPositions = new int[16];
+    private int[] adopterPositions = new int[16];
+    private int nextPetPosition;
+    private int nextAdopterPosition;
+    private Set<Pet> changedPets = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Set<Adopter> changedAdopters = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Object edit;
+    private long modificationCount;
+    private volatile long savedModificationCount;
+    private volatile long lastSaveMillis;
+    private volatile long lastSaveDurationMillis;
+    private volatile long lastSaveBytes;
+    private volatile long saveCount;
+    private volatile long skippedSaveCount;
+
+    public ShelterManager() {
+        this(DEFAULT_SYNC_BATCH_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    public ShelterManager(File dataDirectory) {
+        this(dataDirectory, DEFAULT_SYNC_BATCH_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_AUTOSAVE_INTERVAL_MILLIS);
+    }
+
+    public ShelterManager(int journalSyncBatchSize, long journalSyncIntervalMillis) {
+        this(journalSyncBatchSize, journalSyncIntervalMillis, DEFAULT_AUTOSAVE_INTERVAL_MILLIS);
+    }
+
+    // The journal is forced to disk once syncBatchSize records are pending or syncIntervalMillis has passed.
+    // Every autosaveIntervalMillis a snapshot is written in the background if anything changed; 0 disables autosave.
+    public ShelterManager(int journalSyncBatchSize, long journalSyncIntervalMillis, long autosaveIntervalMillis) {
+        this(new File("."), journalSyncBatchSize, journalSyncIntervalMillis, autosaveIntervalMillis);
+    }
+
+    // Keeps its snapshot, journal and CSV files in dataDirectory, which must exist.
+    public ShelterManager(File dataDirectory, int journalSyncBatchSize, long journalSyncIntervalMillis, long autosaveIntervalMillis) {
+        this.dataDirectory = dataDirectory;
+        pets = new KeyIndex<>(Pet::getSpecies, Pet::getName);
+        adopters = new KeyIndex<>(Adopter::getName, null);
+        ageIndex = new AgeIndex();
+        bitmapIndex = new PetBitmapIndex();
+        petNameIndex = new NgramIndex();
+        adopterNameIndex = new NgramIndex();
+        planner = new QueryPlanner(pets, adopters, petsById, adoptions, ageIndex, bitmapIndex, petNameIndex, statistics);
+        int checkpoint = loadSnapshot();
+        savedModificationCount = modificationCount;
+        replaying = true;
+        long start = metrics.start(ShelterMetrics.Operation.REPLAY_JOURNAL);
+        int lastSegment = Journal.replay(dataDirectory, checkpoint, this::applyJournalRecord);
+        metrics.stop(ShelterMetrics.Operation.REPLAY_JOURNAL, start);
+        replaying = false;
+        journal = new Journal(dataDirectory, Math.max(checkpoint, lastSegment + 1), journalSyncBatchSize, journalSyncIntervalMillis);
+        persistence = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "shelter-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (autosaveIntervalMillis > 0) {
+            persistence.scheduleWithFixedDelay(this::autosave, autosaveIntervalMillis, autosaveIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Batches are handed to the executor in commit order; a serial executor keeps them in that order.
+    public void addListener(ShelterListener listener, Executor executor) {
+        subscriptions.add(new Subscription(listener, executor));
+    }
+
+    public void removeListener(ShelterListener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+
+    public boolean addPet(Pet pet) {
+        return write(ShelterMetrics.Operation.ADD_PET, () -> addPetLocked(pet));
+    }
+
+    // Adds the pets under one write lock, so listeners get one batch of events; a pet whose key is taken is
+    // skipped. Returns how many were added.
+    public int addPets(Collection<Pet> batch) {
+        return write(ShelterMetrics.Operation.ADD_PETS, () -> {
+            int added = 0;
+            for (Pet pet : batch) {
+                if (addPetLocked(pet)) added++;
+            }
+            return added;
+        });
+    }
+
+    public boolean removePet(Pet pet) {
+        return write(ShelterMetrics.Operation.REMOVE_PET, () -> removePetLocked(pet));
+    }
+
+    // Removes the pet only if it is not adopted, checked and done under one write lock; used to move a pet
+    // to another shelter.
+    public boolean removeAvailablePet(Pet pet) {
+        return write(ShelterMetrics.Operation.REMOVE_PET, () -> {
+            Pet current = pets.get(pet.getSpecies(), pet.getName());
+            if (current == null || current.getAdopterName() != null || adoptions.adopterOf(current.getId()) != 0) {
+                return false;
+            }
+            return removePetLocked(current);
+        });
+    }
+
+    public Pet findPetByNameAndSpecies(String name, String species) {
+        long start = metrics.start(ShelterMetrics.Operation.FIND_PET_BY_NAME_AND_SPECIES);
+        try {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    Pet pet = pets.get(species, name);
+                    if (lock.validate(stamp)) return pet;
+                } catch (RuntimeException e) {
+                    // A writer reshaped the index mid-lookup; fall through to the read lock.
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return pets.get(species, name);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        } finally {
+            metrics.stop(ShelterMetrics.Operation.FIND_PET_BY_NAME_AND_SPECIES, start);
+        }
+    }
+
+    // O(1) and lock-free: the latest snapshot's pets, in the order they were added.
+    public List<Pet> getAllPets() {
+        long start = metrics.start(ShelterMetrics.Operation.GET_ALL_PETS);
+        try {
+            return snapshot.getPets();
+        } finally {
+            metrics.stop(ShelterMetrics.Operation.GET_ALL_PETS, start);
+        }
+    }
+
+    // The latest published version; taking it never waits for a writer.
+    public ShelterSnapshot snapshot() {
+        return snapshot;
+    }
+
+    private List<Pet> allPetsLocked() {
+        List<Pet> result = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            result.add(pet);
+        }
+        return result;
+    }
+
+    public void updatePetHealth(Pet pet, String newHealthStatus) {
+        write(ShelterMetrics.Operation.UPDATE_PET_HEALTH, () -> {
+            updatePetHealthLocked(pet, newHealthStatus);
+            return null;
+        });
+    }
+
+    public void updatePetAge(Pet pet, int newAge) {
+        write(ShelterMetrics.Operation.UPDATE_PET_AGE, () -> {
+            updatePetAgeLocked(pet, newAge);
+            return null;
+        });
+    }
+
+    public boolean addAdopter(Adopter adopter) {
+        return write(ShelterMetrics.Operation.ADD_ADOPTER, () -> addAdopterLocked(adopter));
+    }
+
+    public void updateAdopterPhone(Adopter adopter, String newPhone) {
+        write(ShelterMetrics.Operation.UPDATE_ADOPTER_PHONE, () -> {
+            updateAdopterPhoneLocked(adopter, newPhone);
+            return null;
+        });
+    }
+
+    // Frees every pet of the adopter and removes the adopter as one step.
+    public boolean removeAdopter(Adopter adopter) {
+        return write(ShelterMetrics.Operation.REMOVE_ADOPTER, () -> removeAdopterLocked(adopter));
+    }
+
+    public Adopter findAdopterByName(String name) {
+        long start = metrics.start(ShelterMetrics.Operation.FIND_ADOPTER_BY_NAME);
+        try {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    Adopter adopter = frozen(adopters.get(name, null));
+                    if (lock.validate(stamp)) return adopter;
+                } catch (RuntimeException e) {
+                    // A writer reshaped the index mid-lookup; fall through to the read lock.
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return frozen(adopters.get(name, null));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        } finally {
+            metrics.stop(ShelterMetrics.Operation.FIND_ADOPTER_BY_NAME, start);
+        }
+    }
+
+    public List<Adopter> getAllAdopters() {
+        long start = metrics.start(ShelterMetrics.Operation.GET_ALL_ADOPTERS);
+        try {
+            return snapshot.getAdopters();
+        } finally {
+            metrics.stop(ShelterMetrics.Operation.GET_ALL_ADOPTERS, start);
+        }
+    }
+
+    // The availability check and the link are made under one write lock, so a pet is adopted at most once.
+    public boolean adoptPet(Pet pet, Adopter adopter) {
+        return write(ShelterMetrics.Operation.ADOPT_PET, () -> adoptPetLocked(pet, adopter));
+    }
+
+    public boolean returnPetToShelter(Pet pet) {
+        return write(ShelterMetrics.Operation.RETURN_PET, () -> returnPetLocked(pet));
+    }
+
+    // The draft itself becomes the stored record, so the caller sees the ID it was given.
+    private boolean addPetLocked(Pet pet) {
+        if (pet.isFrozen()) {
+            pet = pet.copy();
+        }
+        if (!pets.add(pet)) {
+            return false;
+        }
+        pet.intern(speciesSymbols, healthSymbols);
+        if (pet.getId() <= 0 || petsById.containsKey(pet.getId())) {
+            pet.setId(++lastPetId);
+        } else {
+            lastPetId = Math.max(lastPetId, pet.getId());
+        }
+        Adopter adopter = recordedAdopterOf(pet);
+        if (adopter != null) {
+            pet.setAdopterName(adopter.getName());
+        }
+        pet.setAdopterId(adopter == null ? 0 : adopter.getId());
+        pet.freeze();
+        petsById.put(pet.getId(), pet);
+        ageIndex.add(pet);
+        int row = pets.slotOf(pet);
+        petPositions = withCapacity(petPositions, row);
+        petPositions[row] = nextPetPosition++;
+        changedPets.add(pet);
+        bitmapIndex.add(row, pet);
+        columns.set(row, pet);
+        statistics.petAdded(pet);
+        petNameIndex.add(row, pet.getName());
+        if (adopter != null) {
+            link(pet, adopter);
+        }
+        publish(ShelterEvent.Type.PET_ADDED, pet, null);
+        log("addPet", pet.getSpecies(), pet.getName(), String.valueOf(pet.getAge()), pet.getHealthStatus(), pet.getAdopterName(),
+                String.valueOf(pet.getId()), String.valueOf(pet.getAdopterId()));
+        return true;
+    }
+
+    private boolean removePetLocked(Pet pet) {
+        Pet current = pets.get(pet.getSpecies(), pet.getName());
+        if (current == null) {
+            return false;
+        }
+        Adopter adopter = adoptersById.get(adoptions.unlinkPet(current.getId()));
+        if (adopter != null) {
+            adopter.removeAdoptedPet(current);
+            changedAdopters.add(adopter);
+            statistics.unlinked(adopter.getId());
+        }
+        if (current.getAdopterName() != null) {
+            publish(ShelterEvent.Type.ADOPTION_UNLINKED, current, adopter);
+        }
+        int row = pets.slotOf(current);
+        Pet removed = pets.removeKeyOf(current);
+        petVersions = petVersions.set(petPositions[row], null, edit);
+        petsById.remove(removed.getId());
+        ageIndex.remove(removed);
+        bitmapIndex.remove(row, removed);
+        columns.remove(row);
+        statistics.petRemoved(removed);
+        petNameIndex.remove(row, removed.getName());
+        publish(ShelterEvent.Type.PET_REMOVED, removed, null);
+        log("removePet", removed.getSpecies(), removed.getName());
+        return true;
+    }
+
+    private void updatePetHealthLocked(Pet pet, String newHealthStatus) {
+        Pet current = pets.get(pet.getSpecies(), pet.getName());
+        if (current == null) return;
+        Pet updated = current.withHealthStatus(healthSymbols.intern(newHealthStatus));
+        statistics.healthChanged(current.getHealthStatus(), updated.getHealthStatus());
+        replace(current, updated);
+        publish(ShelterEvent.Type.PET_UPDATED, updated, null);
+        log("updatePetHealth", updated.getSpecies(), updated.getName(), newHealthStatus);
+    }
+
+    private void updatePetAgeLocked(Pet pet, int newAge) {
+        Pet current = pets.get(pet.getSpecies(), pet.getName());
+        if (current == null) return;
+        Pet updated = current.withAge(newAge);
+        bitmapIndex.updateAge(pets.slotOf(current), current.getAge(), newAge);
+        statistics.ageChanged(current.getAge(), newAge);
+        replace(current, updated);
+        publish(ShelterEvent.Type.PET_UPDATED, updated, null);
+        log("updatePetAge", updated.getSpecies(), updated.getName(), String.valueOf(newAge));
+    }
+
+    // Puts an updated copy of a stored pet in its place in every index that holds the record itself.
+    private void replace(Pet pet, Pet updated) {
+        pets.replace(updated);
+        columns.set(pets.slotOf(updated), updated);
+        petsById.put(updated.getId(), updated);
+        ageIndex.replace(pet, updated);
+        changedPets.add(updated);
+    }
+
+    // Pets named in the adopter's list that already name this adopter are linked to it, covering loads
+    // where the pets arrive before their adopters.
+    private boolean addAdopterLocked(Adopter adopter) {
+        if (!adopters.add(adopter)) {
+            return false;
+        }
+        if (adopter.getId() <= 0 || adoptersById.containsKey(adopter.getId())) {
+            adopter.setId(++lastAdopterId);
+        } else {
+            lastAdopterId = Math.max(lastAdopterId, adopter.getId());
+        }
+        adoptersById.put(adopter.getId(), adopter);
+        statistics.adopterAdded();
+        int row = adopters.slotOf(adopter);
+        adopterPositions = withCapacity(adopterPositions, row);
+        adopterPositions[row] = nextAdopterPosition++;
+        changedAdopters.add(adopter);
+        adopterNameIndex.add(row, adopter.getName());
+        for (String petIdentifier : adopter.getAdoptedPetNames()) {
+            int separator = petIdentifier.indexOf(':');
+            Pet pet = separator < 0 ? null : pets.get(petIdentifier.substring(0, separator), petIdentifier.substring(separator + 1));
+            if (pet != null && adoptions.adopterOf(pet.getId()) == 0 && adopter.getName().equalsIgnoreCase(pet.getAdopterName())) {
+                Pet linked = setAdopter(pet, adopter);
+                link(linked, adopter);
+                publish(ShelterEvent.Type.ADOPTION_LINKED, linked, adopter);
+            }
+        }
+        publish(ShelterEvent.Type.ADOPTER_ADDED, null, adopter);
+        log("addAdopter", adopter.getName(), adopter.getPhone(), String.join(";", adopter.getAdoptedPetNames()), String.valueOf(adopter.getId()));
+        return true;
+    }
+
+    private void updateAdopterPhoneLocked(Adopter adopter, String newPhone) {
+        Adopter current = adopters.get(adopter.getName(), null);
+        if (current == null) return;
+        changedAdopters.add(current);
+        current.setPhone(newPhone);
+        publish(ShelterEvent.Type.ADOPTER_UPDATED, null, current);
+        log("updateAdopterPhone", current.getName(), newPhone);
+    }
+
+    private boolean removeAdopterLocked(Adopter adopter) {
+        Adopter current = adopters.get(adopter.getName(), null);
+        if (current == null) {
+            return false;
+        }
+        statistics.adopterRemoved(current.getId());
+        for (int petId : adoptions.unlinkAdopter(current.getId())) {
+            Pet returned = setAdopter(petsById.get(petId), null);
+            publish(ShelterEvent.Type.ADOPTION_UNLINKED, returned, current);
+        }
+        int row = adopters.slotOf(current);
+        Adopter removed = adopters.removeKeyOf(current);
+        adopterVersions = adopterVersions.set(adopterPositions[row], null, edit);
+        adoptersById.remove(removed.getId());
+        adopterNameIndex.remove(row, removed.getName());
+        publish(ShelterEvent.Type.ADOPTER_REMOVED, null, removed);
+        log("removeAdopter", removed.getName());
+        return true;
+    }
+
+    private boolean adoptPetLocked(Pet pet, Adopter adopter) {
+        Pet current = pets.get(pet.getSpecies(), pet.getName());
+        Adopter currentAdopter = adopters.get(adopter.getName(), null);
+        if (current == null || currentAdopter == null) {
+            return false;
+        }
+        if (adoptions.adopterOf(current.getId()) != 0 || (current.getAdopterName() != null && !current.getAdopterName().isEmpty())) {
+            return false;
+        }
+        Pet adopted = setAdopter(current, currentAdopter);
+        link(adopted, currentAdopter);
+        publish(ShelterEvent.Type.ADOPTION_LINKED, adopted, currentAdopter);
+        log("adoptPet", adopted.getSpecies(), adopted.getName(), currentAdopter.getName());
+        return true;
+    }
+
+    private boolean returnPetLocked(Pet pet) {
+        Pet current = pets.get(pet.getSpecies(), pet.getName());
+        if (current == null || current.getAdopterName() == null) {
+            return false;
+        }
+        Adopter adopter = adoptersById.get(adoptions.unlinkPet(current.getId()));
+        if (adopter != null) {
+            adopter.removeAdoptedPet(current);
+            changedAdopters.add(adopter);
+            statistics.unlinked(adopter.getId());
+        }
+        Pet returned = setAdopter(current, null);
+        publish(ShelterEvent.Type.ADOPTION_UNLINKED, returned, adopter);
+        log("returnPet", current.getSpecies(), current.getName());
+        return true;
+    }
+
+    // A recorded adopter ID only counts if it still belongs to the adopter the pet names, so records
+    // imported from another shelter cannot link to an unrelated adopter.
+    private Adopter recordedAdopterOf(Pet pet) {
+        String name = pet.getAdopterName();
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        Adopter byId = adoptersById.get(pet.getAdopterId());
+        return byId != null && byId.getName().equalsIgnoreCase(name) ? byId : adopters.get(name, null);
+    }
+
+    // Records the adoption of a stored pet that already names the adopter.
+    private void link(Pet pet, Adopter adopter) {
+        if (adoptions.link(pet.getId(), adopter.getId())) {
+            statistics.linked(adopter.getId());
+        }
+        adopter.addAdoptedPet(pet);
+        changedAdopters.add(adopter);
+    }
+
+    // Replaces a stored pet with a copy naming the adopter, or none, and returns the copy.
+    private Pet setAdopter(Pet pet, Adopter adopter) {
+        Pet updated = pet.withAdopter(adopter == null ? null : adopter.getName(), adopter == null ? 0 : adopter.getId());
+        statistics.adopterNameChanged(pet.getAdopterName(), updated.getAdopterName());
+        bitmapIndex.updateAdopted(pets.slotOf(pet), adopter != null);
+        replace(pet, updated);
+        return updated;
+    }
+
+    // O(1) through the adoption index.
+    public Adopter getAdopterOf(Pet pet) {
+        return read(ShelterMetrics.Operation.GET_ADOPTER_OF, () -> {
+            Pet current = pets.get(pet.getSpecies(), pet.getName());
+            return current == null ? null : frozen(adoptersById.get(adoptions.adopterOf(current.getId())));
+        });
+    }
+
+    // O(k) in the adopter's number of pets, in adoption order.
+    public List<Pet> getPetsOf(Adopter adopter) {
+        return read(ShelterMetrics.Operation.GET_PETS_OF, () -> {
+            Adopter current = adopters.get(adopter.getName(), null);
+            if (current == null) {
+                return new ArrayList<>();
+            }
+            List<Pet> result = new ArrayList<>();
+            for (int petId : adoptions.petsOf(current.getId())) {
+                result.add(petsById.get(petId));
+            }
+            return result;
+        });
+    }
+
+    public Pet findPetById(int id) {
+        return read(ShelterMetrics.Operation.FIND_PET_BY_ID, () -> petsById.get(id));
+    }
+
+    public Adopter findAdopterById(int id) {
+        return read(ShelterMetrics.Operation.FIND_ADOPTER_BY_ID, () -> frozen(adoptersById.get(id)));
+    }
+
+    public List<Pet> sortPetsByAge() {
+        return sortPetsByAge(true);
+    }
+
+    // Ties within an age are always ordered by species, then name.
+    public List<Pet> sortPetsByAge(boolean ascending) {
+        return read(ShelterMetrics.Operation.SORT_PETS_BY_AGE, () -> ageIndex.sorted(ascending));
+    }
+
+    public List<Pet> filterPetsBySpecies(String species) {
+        if (species == null || species.trim().isEmpty() || species.equalsIgnoreCase("All")) {
+            return read(ShelterMetrics.Operation.FILTER_PETS_BY_SPECIES, this::allPetsLocked);
+        }
+        return read(ShelterMetrics.Operation.FILTER_PETS_BY_SPECIES,
+                () -> new PetSelection(bitmapIndex.select(species, null, null, null).stream().toArray(), pets)).toList();
+    }
+
+    public List<Pet> filterPetsByAge(int minAge, int maxAge) {
+        return read(ShelterMetrics.Operation.FILTER_PETS_BY_AGE, () -> new PetSelection(columns.selectAgeRange(minAge, maxAge), pets)).toList();
+    }
+
+    // Intersects the secondary indexes; a null criterion matches every pet.
+    public PetSelection selectPets(String species, Integer minAge, Integer maxAge, Boolean adopted) {
+        return read(ShelterMetrics.Operation.SELECT_PETS, () -> new PetSelection(bitmapIndex.select(species, minAge, maxAge, adopted).stream().toArray(), pets));
+    }
+
+    // Combines any of the pet criteria; the planner picks the cheapest index to start from.
+    public PetQuery queryPets() {
+        return new PetQuery(this);
+    }
+
+    List<Pet> runQuery(PetQuery query) {
+        return read(ShelterMetrics.Operation.QUERY_PETS, () -> planner.plan(query).execute());
+    }
+
+    PetQuery.Result runQueryWithTotal(PetQuery query) {
+        return read(ShelterMetrics.Operation.QUERY_PETS, () -> planner.plan(query).executeWithTotal());
+    }
+
+    int countQuery(PetQuery query) {
+        return read(ShelterMetrics.Operation.QUERY_PETS, () -> planner.plan(query).count());
+    }
+
+    String explainQuery(PetQuery query) {
+        return read(() -> planner.plan(query).describe());
+    }
+
+    public PetSelection searchPetsByName(String term) {
+        return read(ShelterMetrics.Operation.SEARCH_PETS_BY_NAME, () -> {
+            if (term == null || term.isEmpty()) {
+                return new PetSelection(bitmapIndex.select(null, null, null, null).stream().toArray(), pets);
+            }
+            return new PetSelection(petNameIndex.search(term), pets);
+        });
+    }
+
+    public List<Adopter> searchAdoptersByName(String term) {
+        return read(ShelterMetrics.Operation.SEARCH_ADOPTERS_BY_NAME, () -> {
+            if (term == null || term.isEmpty()) {
+                List<Adopter> result = new ArrayList<>(adopters.size());
+                for (Adopter adopter : adopters) {
+                    result.add(frozen(adopter));
+                }
+                return result;
+            }
+            int[] rows = adopterNameIndex.search(term);
+            List<Adopter> result = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                result.add(adopterVersions.at(adopterPositions[row]));
+            }
+            return result;
+        });
+    }
+
+    public List<String> suggestPetNames(String prefix, int limit) {
+        return read(ShelterMetrics.Operation.SUGGEST_PET_NAMES, () -> petNameIndex.complete(prefix, limit));
+    }
+
+    public List<String> suggestAdopterNames(String prefix, int limit) {
+        return read(ShelterMetrics.Operation.SUGGEST_ADOPTER_NAMES, () -> adopterNameIndex.complete(prefix, limit));
+    }
+
+    public List<String> getUniqueSpecies() {
+        return new ArrayList<>(countPetsBySpecies().keySet());
+    }
+
+    // Sorted by species name.
+    public Map<String, Integer> countPetsBySpecies() {
+        return read(ShelterMetrics.Operation.COUNT_PETS_BY_SPECIES,
+                () -> ShelterStatistics.speciesCounts(columns.countBySpecies(), speciesSymbols));
+    }
+
+    // A point-in-time copy with the pet counts scanned from the columns under the lock.
+    public ShelterStatistics getStatistics() {
+        return read(ShelterMetrics.Operation.GET_STATISTICS, () -> statistics.scan(columns));
+    }
+
+    // Recomputes every aggregate from the records and compares it with the maintained counts and the columns.
+    public boolean verifyStatistics() {
+        return read(ShelterMetrics.Operation.VERIFY_STATISTICS, () -> {
+            ShelterStatistics recomputed = new ShelterStatistics(speciesSymbols, healthSymbols);
+            // Adoptions come from the pets' own adopter IDs, not the AdoptionIndex, so drift there shows up too.
+            for (Pet pet : pets) {
+                recomputed.petAdded(pet);
+                if (pet.getAdopterId() != 0) {
+                    recomputed.linked(pet.getAdopterId());
+                }
+            }
+            for (Adopter adopter : adopters) {
+                recomputed.adopterAdded();
+            }
+            if (!recomputed.equals(statistics)) {
+                System.err.println("Statistics drifted: maintained " + statistics + ", recomputed " + recomputed);
+                return false;
+            }
+            ShelterStatistics scanned = statistics.scan(columns);
+            if (!recomputed.equals(scanned)) {
+                System.err.println("Columns drifted: scanned " + scanned + ", recomputed " + recomputed);
+                return false;
+            }
+            return true;
+        });
+    }
+
+    private <T> T read(ShelterMetrics.Operation operation, Supplier<T> action) {
+        long start = metrics.start(operation);
+        long stamp = lock.readLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockRead(stamp);
+            metrics.stop(operation, start);
+        }
+    }
+
+    private <T> T write(ShelterMetrics.Operation operation, Supplier<T> action) {
+        long start = metrics.start(operation);
+        try {
+            return write(action);
+        } finally {
+            metrics.stop(operation, start);
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        long stamp = lock.readLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Events raised inside one write are delivered together once the lock is released. The journal is reserved
+    // before the action runs, so a write it would refuse fails before changing anything.
+    private <T> T write(Supplier<T> action) {
+        List<ShelterEvent> events;
+        long stamp = lock.writeLock();
+        edit = new Object();
+        try {
+            if (!replaying && journal != null) {
+                journal.reserve();
+            }
+            return action.get();
+        } finally {
+            publishSnapshot();
+            edit = null;
+            events = pendingEvents;
+            if (!events.isEmpty()) {
+                pendingEvents = new ArrayList<>();
+                outbox.add(Collections.unmodifiableList(events));
+            }
+            lock.unlockWrite(stamp);
+            if (!events.isEmpty()) {
+                dispatchOutbox();
+            }
+        }
+    }
+
+    // Puts the records this write changed into a new version and publishes it. Stored pets are already immutable;
+    // adopters are frozen into copies. The nodes edited in place were all created under this write's token, so no
+    // published version sees them change.
+    private void publishSnapshot() {
+        for (Pet pet : changedPets) {
+            int row = pets.slotOf(pet);
+            if (row >= 0 && pets.getBySlot(row) == pet) {
+                petVersions = petVersions.set(petPositions[row], pet, edit);
+            }
+        }
+        changedPets = emptied(changedPets);
+        for (Adopter adopter : changedAdopters) {
+            int row = adopters.slotOf(adopter);
+            if (row >= 0 && adopters.getBySlot(row) == adopter) {
+                adopterVersions = adopterVersions.set(adopterPositions[row], adopter.freeze(), edit);
+            }
+        }
+        changedAdopters = emptied(changedAdopters);
+        if (petVersions.end() - petVersions.size() > Math.max(MIN_SNAPSHOT_HOLES, petVersions.size())) {
+            petVersions = compacted(petVersions, pets, petPositions);
+            nextPetPosition = petVersions.end();
+        }
+        if (adopterVersions.end() - adopterVersions.size() > Math.max(MIN_SNAPSHOT_HOLES, adopterVersions.size())) {
+            adopterVersions = compacted(adopterVersions, adopters, adopterPositions);
+            nextAdopterPosition = adopterVersions.end();
+        }
+        ShelterSnapshot current = snapshot;
+        if (petVersions != current.petVersions() || adopterVersions != current.adopterVersions()) {
+            snapshot = new ShelterSnapshot(current.getVersion() + 1, petVersions, adopterVersions);
+        }
+    }
+
+    // The published copy of a stored adopter. Outside a write it is the record as of the last write, so lookups
+    // hand out copies like the pet lookups do, never the record the manager keeps changing.
+    private Adopter frozen(Adopter adopter) {
+        return adopter == null ? null : adopterVersions.at(adopterPositions[adopters.slotOf(adopter)]);
+    }
+
+    // Rebuilds the vector without the holes left by removals, keeping the order, and moves the positions to match.
+    private <T> PersistentVector<T> compacted(PersistentVector<T> vector, KeyIndex<T> index, int[] positions) {
+        PersistentVector<T> result = PersistentVector.empty();
+        int position = 0;
+        for (T record : vector.asList()) {
+            positions[index.slotOf(record)] = position;
+            result = result.set(position++, record, edit);
+        }
+        return result;
+    }
+
+    // Clearing an identity set costs its capacity, so one grown by a bulk write is replaced instead.
+    private static <T> Set<T> emptied(Set<T> changed) {
+        if (changed.size() > 64) {
+            return Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+        changed.clear();
+        return changed;
+    }
+
+    private static int[] withCapacity(int[] positions, int row) {
+        return row < positions.length ? positions : Arrays.copyOf(positions, Math.max(row + 1, positions.length << 1));
+    }
+
+    private void publish(ShelterEvent.Type type, Pet pet, Adopter adopter) {
+        if (!subscriptions.isEmpty()) {
+            pendingEvents.add(new ShelterEvent(type, pet, adopter));
+        }
+    }
+
+    // Another writer may have queued its batch after ours but reached here first; draining under one lock keeps
+    // every batch in the order it was committed.
+    private void dispatchOutbox() {
+        synchronized (dispatchLock) {
+            List<ShelterEvent> events;
+            while ((events = outbox.poll()) != null) {
+                dispatch(events);
+            }
+        }
+    }
+
+    private void dispatch(List<ShelterEvent> events) {
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.executor.execute(() -> {
+                    try {
+                        subscription.listener.shelterChanged(events);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error in shelter listener: " + e.getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                System.err.println("Could not deliver shelter events: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Subscription {
+        final ShelterListener listener;
+        final Executor executor;
+
+        Subscription(ShelterListener listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    // Writes a full snapshot and drops the journal segments it covers.
+    public void saveData() {
+        long start = metrics.start(ShelterMetrics.Operation.SAVE_DATA);
+        try {
+            write(this::compact).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error saving data: " + e.getCause().getMessage());
+        } finally {
+            metrics.stop(ShelterMetrics.Operation.SAVE_DATA, start);
+        }
+    }
+
+    // Does not write a new snapshot: the journal already holds every change, so this only waits for the
+    // snapshot in flight and forces the journal.
+    public void close() {
+        persistence.shutdown();
+        try {
+            Future<?> compaction = pendingCompaction;
+            if (compaction != null) {
+                compaction.get();
+            }
+            persistence.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            // Under the write lock, so no write is between its reservation and its append.
+            long stamp = lock.writeLock();
+            try {
+                journal.close();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            metrics.unregisterMBeans();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | IOException e) {
+            System.err.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    public ShelterMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Prints the metrics every intervalMillis on the persistence thread until the shelter is closed.
+    public void scheduleMetricsDump(long intervalMillis, PrintStream out) {
+        persistence.scheduleAtFixedRate(() -> out.print(metrics.dump()), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isDirty() {
+        return read(() -> modificationCount != savedModificationCount);
+    }
+
+    public long getLastSaveMillis() {
+        return lastSaveMillis;
+    }
+
+    public long getLastSaveDurationMillis() {
+        return lastSaveDurationMillis;
+    }
+
+    public long getLastSaveBytes() {
+        return lastSaveBytes;
+    }
+
+    public long getSaveCount() {
+        return saveCount;
+    }
+
+    public long getSkippedSaveCount() {
+        return skippedSaveCount;
+    }
+
+    // Runs on the persistence thread; the read lock is held only while the snapshot arrays are copied.
+    private void autosave() {
+        try {
+            read(() -> {
+                Future<?> compaction = pendingCompaction;
+                if (modificationCount == savedModificationCount || (compaction != null && !compaction.isDone())) {
+                    skippedSaveCount++;
+                    return null;
+                }
+                return compact();
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Error during autosave: " + e.getMessage());
+        }
+    }
+
+    // Callers hold the lock, so the capture is consistent; serialization and the rename happen on the persistence thread.
+    private Future<?> compact() {
+        int firstKeptSegment = journal.rotate();
+        long captured = modificationCount;
+        BinarySnapshot snapshot = BinarySnapshot.capture(pets, pets.size(), adopters, adopters.size(), firstKeptSegment);
+        int records = pets.size() + adopters.size();
+        savedModificationCount = captured;
+        pendingCompaction = persistence.submit(() -> {
+            long start = System.nanoTime();
+            long timer = metrics.start(ShelterMetrics.Operation.WRITE_SNAPSHOT);
+            try {
+                lastSaveBytes = snapshot.writeTo(new File(dataDirectory, SNAPSHOT_FILE));
+            } catch (IOException | RuntimeException e) {
+                savedModificationCount = -1;
+                System.err.println("Error saving snapshot: " + e.getMessage());
+                throw e;
+            } finally {
+                metrics.stop(ShelterMetrics.Operation.WRITE_SNAPSHOT, timer);
+            }
+            metrics.recordsWritten(records);
+            lastSaveDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastSaveMillis = System.currentTimeMillis();
+            saveCount++;
+            journal.deleteSegmentsBefore(firstKeptSegment);
+            return null;
+        });
+        return pendingCompaction;
+    }
+
+    // Prefers the binary snapshot; a shelter that only has the CSV files is migrated to it once.
+    private int loadSnapshot() {
+        File snapshotFile = new File(dataDirectory, SNAPSHOT_FILE);
+        if (snapshotFile.exists()) {
+            long start = metrics.start(ShelterMetrics.Operation.LOAD_SNAPSHOT);
+            try {
+                BinarySnapshot snapshot = BinarySnapshot.read(snapshotFile);
+                write(() -> {
+                    List<Pet> loadedPets = snapshot.getPets();
+                    List<Adopter> loadedAdopters = snapshot.getAdopters();
+                    metrics.recordsRead(loadedPets.size() + loadedAdopters.size());
+                    addAllLocked(loadedPets, loadedAdopters);
+                    return null;
+                });
+                return snapshot.getCheckpoint();
+            } catch (IOException e) {
+                metrics.recordsRejected(1);
+                System.err.println("Error loading snapshot: " + e.getMessage());
+                File corrupt = new File(dataDirectory, SNAPSHOT_FILE + ".corrupt");
+                if (!snapshotFile.renameTo(corrupt)) {
+                    System.err.println("Could not move aside " + snapshotFile);
+                }
+            } finally {
+                metrics.stop(ShelterMetrics.Operation.LOAD_SNAPSHOT, start);
+            }
+        }
+
+        File petsFile = new File(dataDirectory, PETS_FILE);
+        File adoptersFile = new File(dataDirectory, ADOPTERS_FILE);
+        if (!petsFile.exists() && !adoptersFile.exists()) {
+            return 0;
+        }
+        importCsv(petsFile, adoptersFile);
+        int checkpoint = readCheckpoint();
+        try {
+            read(() -> BinarySnapshot.capture(pets, pets.size(), adopters, adopters.size(), checkpoint)).writeTo(snapshotFile);
+        } catch (IOException e) {
+            System.err.println("Error migrating to binary snapshot: " + e.getMessage());
+        }
+        return checkpoint;
+    }
+
+    public void exportCsv(File petsFile, File adoptersFile) throws IOException {
+        RecordCodec codec = new RecordCodec();
+        long start = metrics.start(ShelterMetrics.Operation.EXPORT_CSV);
+        long stamp = lock.readLock();
+        try {
+            writeLinesAtomically(petsFile, pets, codec::encodePet);
+            writeLinesAtomically(adoptersFile, adopters, codec::encodeAdopter);
+            metrics.recordsWritten(pets.size() + adopters.size());
+        } finally {
+            lock.unlockRead(stamp);
+            metrics.stop(ShelterMetrics.Operation.EXPORT_CSV, start);
+        }
+    }
+
+    private void maybeCompact() {
+        long threshold = Math.max(MIN_COMPACTION_RECORDS, (long) pets.size() + adopters.size());
+        if (journal.recordsInCurrentSegment() >= threshold && (pendingCompaction == null || pendingCompaction.isDone())) {
+            compact();
+        }
+    }
+
+    private static <T> void writeLinesAtomically(File target, Iterable<T> records, BiConsumer<T, StringBuilder> encoder) throws IOException {
+        File temp = new File(target.getPath() + ".tmp");
+        StringBuilder line = new StringBuilder(128);
+        try (FileOutputStream out = new FileOutputStream(temp);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out)))) {
+            for (T record : records) {
+                line.setLength(0);
+                encoder.accept(record, line);
+                writer.append(line).println();
+            }
+            writer.flush();
+            if (writer.checkError()) throw new IOException("Could not write " + temp);
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Only CSV-era shelters have this file; the binary snapshot carries its own checkpoint.
+    private int readCheckpoint() {
+        File checkpointFile = new File(dataDirectory, CHECKPOINT_FILE);
+        if (!checkpointFile.exists()) return 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(checkpointFile))) {
+            String line = reader.readLine();
+            return line == null ? 0 : Integer.parseInt(line.trim());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading checkpoint: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private void log(String... record) {
+        modificationCount++;
+        if (replaying || journal == null) return;
+        journal.append(record);
+        metrics.recordsWritten(1);
+        maybeCompact();
+    }
+
+    private void applyJournalRecord(String[] record) {
+        metrics.recordsRead(1);
+        try {
+            switch (record[0]) {
+                case "addPet": {
+                    Pet pet = new Pet(record[1], record[2], Integer.parseInt(record[3]), record[4]);
+                    pet.setAdopterName(record[5]);
+                    if (record.length > 7) {
+                        pet.setId(Integer.parseInt(record[6]));
+                        pet.setAdopterId(Integer.parseInt(record[7]));
+                    }
+                    addPet(pet);
+                    break;
+                }
+                case "removePet": {
+                    Pet pet = findPetByNameAndSpecies(record[2], record[1]);
+                    if (pet != null) removePet(pet);
+                    break;
+                }
+                case "updatePetHealth": {
+                    Pet pet = findPetByNameAndSpecies(record[2], record[1]);
+                    if (pet != null) updatePetHealth(pet, record[3]);
+                    break;
+                }
+                case "updatePetAge": {
+                    Pet pet = findPetByNameAndSpecies(record[2], record[1]);
+                    if (pet != null) updatePetAge(pet, Integer.parseInt(record[3]));
+                    break;
+                }
+                case "adoptPet": {
+                    Pet pet = findPetByNameAndSpecies(record[2], record[1]);
+                    Adopter adopter = findAdopterByName(record[3]);
+                    if (pet != null && adopter != null) adoptPet(pet, adopter);
+                    break;
+                }
+                case "returnPet": {
+                    Pet pet = findPetByNameAndSpecies(record[2], record[1]);
+                    if (pet != null) returnPetToShelter(pet);
+                    break;
+                }
+                case "addAdopter": {
+                    Adopter adopter = new Adopter(record[1], record[2]);
+                    for (String petIdentifier : record[3].split(";")) {
+                        if (!petIdentifier.isEmpty()) adopter.addAdoptedPetName(petIdentifier);
+                    }
+                    if (record.length > 4) {
+                        adopter.setId(Integer.parseInt(record[4]));
+                    }
+                    addAdopter(adopter);
+                    break;
+                }
+                case "removeAdopter": {
+                    Adopter adopter = findAdopterByName(record[1]);
+                    if (adopter != null) removeAdopter(adopter);
+                    break;
+                }
+                case "updateAdopterPhone": {
+                    Adopter adopter = findAdopterByName(record[1]);
+                    if (adopter != null) updateAdopterPhone(adopter, record[2]);
+                    break;
+                }
+                default:
+                    metrics.recordsRejected(1);
+                    System.err.println("Unknown journal record: " + record[0]);
+            }
+        } catch (RuntimeException e) {
+            metrics.recordsRejected(1);
+            System.err.println("Skipping malformed journal record " + record[0] + ": " + e.getMessage());
+        }
+    }
+
+    public void loadData() {
+        importCsv(new File(dataDirectory, PETS_FILE), new File(dataDirectory, ADOPTERS_FILE));
+    }
+
+    public List<CsvLoader.ParseError> importCsv(File petsFile, File adoptersFile) {
+        return importCsv(petsFile, adoptersFile, true);
+    }
+
+    // In parallel mode both files are split into chunks and parsed at the same time on the common pool.
+    public List<CsvLoader.ParseError> importCsv(File petsFile, File adoptersFile, boolean parallel) {
+        long start = metrics.start(ShelterMetrics.Operation.IMPORT_CSV);
+        try {
+            return importCsvTimed(petsFile, adoptersFile, parallel);
+        } finally {
+            metrics.stop(ShelterMetrics.Operation.IMPORT_CSV, start);
+        }
+    }
+
+    private List<CsvLoader.ParseError> importCsvTimed(File petsFile, File adoptersFile, boolean parallel) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        CompletableFuture<CsvLoader.Result<Pet>> petsLoad = load(petsFile, RecordCodec::decodePet, parallel, pool);
+        CompletableFuture<CsvLoader.Result<Adopter>> adoptersLoad = load(adoptersFile, RecordCodec::decodeAdopter, parallel, pool);
+
+        List<CsvLoader.ParseError> errors = new ArrayList<>();
+        CsvLoader.Result<Pet> loadedPets = join(petsLoad, "pets");
+        CsvLoader.Result<Adopter> loadedAdopters = join(adoptersLoad, "adopters");
+        write(() -> {
+            List<Pet> petRecords = loadedPets == null ? Collections.emptyList() : loadedPets.getRecords();
+            List<Adopter> adopterRecords = loadedAdopters == null ? Collections.emptyList() : loadedAdopters.getRecords();
+            metrics.recordsRead(petRecords.size() + adopterRecords.size());
+            addAllLocked(petRecords, adopterRecords);
+            return null;
+        });
+        if (loadedPets != null) {
+            errors.addAll(loadedPets.getErrors());
+        }
+        if (loadedAdopters != null) {
+            errors.addAll(loadedAdopters.getErrors());
+        }
+        for (CsvLoader.ParseError error : errors) {
+            System.err.println("Skipped invalid record at " + error);
+        }
+        metrics.recordsRejected(errors.size());
+        return errors;
+    }
+
+    // Records whose key is already taken are dropped and counted as rejected.
+    private void addAllLocked(List<Pet> loadedPets, List<Adopter> loadedAdopters) {
+        int rejected = 0;
+        for (Pet pet : loadedPets) {
+            if (!addPetLocked(pet)) rejected++;
+        }
+        for (Adopter adopter : loadedAdopters) {
+            if (!addAdopterLocked(adopter)) rejected++;
+        }
+        metrics.recordsRejected(rejected);
+    }
+
+    private static <T> CompletableFuture<CsvLoader.Result<T>> load(File file, CsvLoader.LineParser<T> parser, boolean parallel, ForkJoinPool pool) {
+        Supplier<CsvLoader.Result<T>> task = () -> {
+            try {
+                return CsvLoader.load(file, parser, parallel, pool);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        return parallel ? CompletableFuture.supplyAsync(task, pool) : CompletableFuture.completedFuture(task.get());
+    }
+
+    private static <T> T join(CompletableFuture<T> load, String what) {
+        try {
+            return load.join();
+        } catch (CompletionException | UncheckedIOException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            System.err.println("Error loading " + what + ": " + cause.getMessage());
+            return null;
+        }
+    }
+}
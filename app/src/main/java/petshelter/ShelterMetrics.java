@@ -0,0 +1,198 @@
+package petshelter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Call counts, latency histograms and record counters for one ShelterManager. Callers bracket an operation
+// with start and stop; while disabled, start is a single volatile read and stop records nothing.
+public class ShelterMetrics implements ShelterMetricsMBean {
+    static final long NOT_SAMPLED = Long.MIN_VALUE;
+    static final long DISABLED = Long.MIN_VALUE + 1;
+    private static final String DOMAIN = "petshelter";
+
+    // Point lookups take well under a microsecond, so timing or even counting each one would cost a large share of
+    // the lookup itself; only one call in sampleEvery (a power of two) is timed and counted.
+    public enum Operation {
+        ADD_PET("addPet", 1),
+        ADD_PETS("addPets", 1),
+        REMOVE_PET("removePet", 1),
+        FIND_PET_BY_NAME_AND_SPECIES("findPetByNameAndSpecies", 64),
+        FIND_PET_BY_ID("findPetById", 64),
+        GET_ALL_PETS("getAllPets", 64),
+        UPDATE_PET_HEALTH("updatePetHealth", 1),
+        UPDATE_PET_AGE("updatePetAge", 1),
+        ADD_ADOPTER("addAdopter", 1),
+        UPDATE_ADOPTER_PHONE("updateAdopterPhone", 1),
+        REMOVE_ADOPTER("removeAdopter", 1),
+        FIND_ADOPTER_BY_NAME("findAdopterByName", 64),
+        FIND_ADOPTER_BY_ID("findAdopterById", 64),
+        GET_ALL_ADOPTERS("getAllAdopters", 64),
+        ADOPT_PET("adoptPet", 1),
+        RETURN_PET("returnPetToShelter", 1),
+        GET_ADOPTER_OF("getAdopterOf", 64),
+        GET_PETS_OF("getPetsOf", 1),
+        SORT_PETS_BY_AGE("sortPetsByAge", 1),
+        FILTER_PETS_BY_SPECIES("filterPetsBySpecies", 1),
+        FILTER_PETS_BY_AGE("filterPetsByAge", 1),
+        SELECT_PETS("selectPets", 1),
+        QUERY_PETS("queryPets", 1),
+        SEARCH_PETS_BY_NAME("searchPetsByName", 1),
+        SEARCH_ADOPTERS_BY_NAME("searchAdoptersByName", 1),
+        SUGGEST_PET_NAMES("suggestPetNames", 1),
+        SUGGEST_ADOPTER_NAMES("suggestAdopterNames", 1),
+        COUNT_PETS_BY_SPECIES("countPetsBySpecies", 1),
+        GET_STATISTICS("getStatistics", 1),
+        VERIFY_STATISTICS("verifyStatistics", 1),
+        SAVE_DATA("saveData", 1),
+        WRITE_SNAPSHOT("writeSnapshot", 1),
+        LOAD_SNAPSHOT("loadSnapshot", 1),
+        REPLAY_JOURNAL("replayJournal", 1),
+        IMPORT_CSV("importCsv", 1),
+        EXPORT_CSV("exportCsv", 1),
+        IMPORT_PETS("importPets", 1);
+
+        private final String label;
+        private final int sampleEvery;
+
+        Operation(String label, int sampleEvery) {
+            this.label = label;
+            this.sampleEvery = sampleEvery;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        int getSampleEvery() {
+            return sampleEvery;
+        }
+    }
+
+    private final OperationMetrics[] operations;
+    private final LongAdder recordsRead = new LongAdder();
+    private final LongAdder recordsWritten = new LongAdder();
+    private final LongAdder recordsRejected = new LongAdder();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private volatile boolean enabled = true;
+
+    public ShelterMetrics() {
+        Operation[] values = Operation.values();
+        operations = new OperationMetrics[values.length];
+        for (Operation operation : values) {
+            operations[operation.ordinal()] = new OperationMetrics(operation);
+        }
+    }
+
+    // Returns the token to hand to stop.
+    long start(Operation operation) {
+        if (!enabled) {
+            return DISABLED;
+        }
+        return operations[operation.ordinal()].start();
+    }
+
+    void stop(Operation operation, long start) {
+        if (start != DISABLED) {
+            operations[operation.ordinal()].record(start);
+        }
+    }
+
+    void recordsRead(long count) {
+        if (enabled) recordsRead.add(count);
+    }
+
+    void recordsWritten(long count) {
+        if (enabled) recordsWritten.add(count);
+    }
+
+    void recordsRejected(long count) {
+        if (enabled) recordsRejected.add(count);
+    }
+
+    public OperationMetrics get(Operation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getRecordsRead() {
+        return recordsRead.sum();
+    }
+
+    @Override
+    public long getRecordsWritten() {
+        return recordsWritten.sum();
+    }
+
+    @Override
+    public long getRecordsRejected() {
+        return recordsRejected.sum();
+    }
+
+    // One line per operation that has been called, latencies in microseconds.
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("records read %d, written %d, rejected %d%n", getRecordsRead(), getRecordsWritten(), getRecordsRejected()));
+        out.append(String.format("%-26s %10s %10s %10s %10s %10s%n", "operation", "calls", "p50 us", "p99 us", "p999 us", "max us"));
+        for (OperationMetrics metrics : operations) {
+            long calls = metrics.getCalls();
+            if (calls == 0) {
+                continue;
+            }
+            LatencyHistogram.Snapshot latencies = metrics.getLatencies();
+            out.append(String.format("%-26s %10d %10.1f %10.1f %10.1f %10.1f%n", metrics.getOperation(), calls,
+                    latencies.getValueAtPercentile(0.50) / 1e3, latencies.getValueAtPercentile(0.99) / 1e3,
+                    latencies.getValueAtPercentile(0.999) / 1e3, latencies.getMax() / 1e3));
+        }
+        return out.toString();
+    }
+
+    // Registers petshelter:type=ShelterMetrics and one petshelter:type=OperationMetrics per operation, keyed by shelter.
+    public synchronized void registerMBeans(String shelter) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String quoted = ObjectName.quote(shelter);
+        try {
+            register(server, new ObjectName(DOMAIN + ":type=ShelterMetrics,shelter=" + quoted),
+                    new StandardMBean(this, ShelterMetricsMBean.class));
+            for (OperationMetrics metrics : operations) {
+                register(server, new ObjectName(DOMAIN + ":type=OperationMetrics,shelter=" + quoted + ",operation=" + metrics.getOperation()),
+                        new StandardMBean(metrics, OperationMetricsMBean.class));
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        server.registerMBean(bean, name);
+        registered.add(name);
+    }
+
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                System.err.println("Error unregistering " + name + ": " + e.getMessage());
+            }
+        }
+        registered.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package petshelter;
+
+public interface ShelterMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getRecordsRead();
+
+    long getRecordsWritten();
+
+    long getRecordsRejected();
+
+    String dump();
+}
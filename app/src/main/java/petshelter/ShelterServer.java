@@ -0,0 +1,504 @@
+package petshelter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A headless JSON API over one ShelterManager, so kiosks and intake scripts can share a shelter with the desktop app.
+//
+//   GET    /pets?species=&minAge=&maxAge=&adopted=&healthStatus=&q=&prefix=&adopter=&sort=[-]age|name|species
+//              &offset=&limit=&explain=true
+//   POST   /pets                  {"species", "name", "age", "healthStatus"}
+//   GET    /pets/{id}
+//   PATCH  /pets/{id}             {"age", "healthStatus"}
+//   DELETE /pets/{id}
+//   POST   /pets/{id}/adopt       {"adopterId"}
+//   POST   /pets/{id}/return
+//   GET    /adopters?q=&offset=&limit=
+//   POST   /adopters              {"name", "phone"}
+//   GET    /adopters/{id}
+//   PATCH  /adopters/{id}         {"phone"}
+//   DELETE /adopters/{id}
+//   GET    /adopters/{id}/pets?offset=&limit=
+//   GET    /statistics
+//   GET    /metrics               (plain text)
+//
+// Connections are kept alive between requests. Pages longer than STREAM_THRESHOLD items are sent chunked as they are
+// encoded instead of being built in memory first.
+public class ShelterServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 1024;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int STREAM_THRESHOLD = 256;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_AGE = 300;
+    private static final int MAX_TEXT_LENGTH = 200;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final ShelterManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ShelterServer(ShelterManager manager, InetSocketAddress address) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/pets", exchange -> handle(exchange, this::pets));
+        server.createContext("/adopters", exchange -> handle(exchange, this::adopters));
+        server.createContext("/statistics", exchange -> handle(exchange, this::statistics));
+        server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Waits up to delaySeconds for exchanges in progress; the manager is left open.
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Virtual threads need JDK 21, and this code targets an older release, so they are looked up reflectively.
+    // On older runtimes requests run on a fixed pool of platform threads.
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threads = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(8, 4 * Runtime.getRuntime().availableProcessors()), r -> {
+                Thread thread = new Thread(r, "shelter-http-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface Route {
+        void handle(HttpExchange exchange, String[] path) throws IOException;
+    }
+
+    private interface Encoder<T> {
+        void encode(T record, Appendable out) throws IOException;
+    }
+
+    private static final class HttpError extends RuntimeException {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Route route) {
+        try {
+            String context = exchange.getHttpContext().getPath();
+            String rest = exchange.getRequestURI().getPath().substring(context.length());
+            List<String> segments = new ArrayList<>();
+            for (String segment : rest.split("/")) {
+                if (!segment.isEmpty()) segments.add(segment);
+            }
+            route.handle(exchange, segments.toArray(new String[0]));
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error writing response to " + exchange.getRemoteAddress() + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void pets(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0) {
+            if (method.equals("GET")) {
+                listPets(exchange);
+            } else if (method.equals("POST")) {
+                createPet(exchange);
+            } else {
+                throw methodNotAllowed(method);
+            }
+            return;
+        }
+        Pet pet = manager.findPetById(parseId(path[0]));
+        if (pet == null) {
+            throw new HttpError(404, "No pet with id " + path[0]);
+        }
+        if (path.length == 1) {
+            switch (method) {
+                case "GET":
+                    break;
+                case "PATCH": {
+                    // The whole body is validated before either field is applied, so a bad request changes nothing.
+                    Map<String, Object> body = readBody(exchange);
+                    Integer age = body.containsKey("age") ? age(body.get("age")) : null;
+                    String healthStatus = body.containsKey("healthStatus") ? requiredText(body, "healthStatus") : null;
+                    if (age != null) {
+                        manager.updatePetAge(pet, age);
+                    }
+                    if (healthStatus != null) {
+                        manager.updatePetHealth(pet, healthStatus);
+                    }
+                    pet = current(pet);
+                    break;
+                }
+                case "DELETE":
+                    if (!manager.removePet(pet)) {
+                        throw new HttpError(404, "No pet with id " + path[0]);
+                    }
+                    sendEmpty(exchange, 204);
+                    return;
+                default:
+                    throw methodNotAllowed(method);
+            }
+            sendRecord(exchange, 200, pet, Json::writePet);
+            return;
+        }
+        if (path.length == 2 && method.equals("POST") && path[1].equals("adopt")) {
+            Map<String, Object> body = readBody(exchange);
+            Adopter adopter = manager.findAdopterById(parseId(String.valueOf(body.get("adopterId"))));
+            if (adopter == null) {
+                throw new HttpError(404, "No adopter with id " + body.get("adopterId"));
+            }
+            if (!manager.adoptPet(pet, adopter)) {
+                throw new HttpError(409, pet.getName() + " is not available for adoption");
+            }
+            sendRecord(exchange, 200, current(pet), Json::writePet);
+        } else if (path.length == 2 && method.equals("POST") && path[1].equals("return")) {
+            if (!manager.returnPetToShelter(pet)) {
+                throw new HttpError(409, pet.getName() + " is not adopted");
+            }
+            sendRecord(exchange, 200, current(pet), Json::writePet);
+        } else {
+            throw new HttpError(404, "No such resource");
+        }
+    }
+
+    // Updates store a new record, so the response is built from the one stored now.
+    private Pet current(Pet pet) {
+        Pet current = manager.findPetById(pet.getId());
+        if (current == null) {
+            throw new HttpError(404, "No pet with id " + pet.getId());
+        }
+        return current;
+    }
+
+    private void listPets(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        String species = query.get("species");
+        Integer minAge = optionalInt(query.get("minAge"));
+        Integer maxAge = optionalInt(query.get("maxAge"));
+        Boolean adopted = query.containsKey("adopted") ? Boolean.valueOf(query.get("adopted")) : null;
+        PetQuery petQuery = manager.queryPets().species(species).minAge(minAge).maxAge(maxAge).adopted(adopted)
+                .healthStatus(query.get("healthStatus")).nameContains(query.get("q")).nameStartsWith(query.get("prefix"))
+                .adoptedBy(query.get("adopter"));
+        String sort = query.get("sort");
+        if (sort != null) {
+            boolean ascending = !sort.startsWith("-");
+            try {
+                petQuery.orderBy(PetQuery.SortKey.valueOf(sort.substring(ascending ? 0 : 1).toUpperCase()), ascending);
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, "Cannot sort by " + sort);
+            }
+        }
+        int offset = pageOffset(query);
+        int limit = pageLimit(query);
+        petQuery.offset(offset).limit(limit);
+        if (Boolean.parseBoolean(query.get("explain"))) {
+            StringBuilder body = new StringBuilder("{\"plan\":");
+            Json.writeString(body, petQuery.explain());
+            send(exchange, 200, JSON, body.append('}').toString());
+            return;
+        }
+        // One walk under one read: matches past the page are only counted, and a sort keeps just the top of the page.
+        PetQuery.Result page = petQuery.listWithTotal();
+        sendPage(exchange, offset, limit, page.getTotal(), page.getPets(), Json::writePet);
+    }
+
+    private void createPet(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        String healthStatus = body.get("healthStatus") == null ? "Healthy" : requiredText(body, "healthStatus");
+        Pet pet = new Pet(requiredText(body, "species"), requiredText(body, "name"), age(body.get("age")), healthStatus);
+        if (!manager.addPet(pet)) {
+            throw new HttpError(409, "A " + pet.getSpecies() + " named " + pet.getName() + " already exists");
+        }
+        exchange.getResponseHeaders().set("Location", "/pets/" + pet.getId());
+        sendRecord(exchange, 201, pet, Json::writePet);
+    }
+
+    private void adopters(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0) {
+            if (method.equals("GET")) {
+                Map<String, String> query = parseQuery(exchange);
+                String term = query.get("q");
+                sendPage(exchange, query, term == null ? manager.getAllAdopters() : manager.searchAdoptersByName(term),
+                        Json::writeAdopter);
+            } else if (method.equals("POST")) {
+                Map<String, Object> body = readBody(exchange);
+                Adopter adopter = new Adopter(requiredText(body, "name"), requiredText(body, "phone"));
+                if (!manager.addAdopter(adopter)) {
+                    throw new HttpError(409, "An adopter named " + adopter.getName() + " already exists");
+                }
+                exchange.getResponseHeaders().set("Location", "/adopters/" + adopter.getId());
+                sendRecord(exchange, 201, adopter, Json::writeAdopter);
+            } else {
+                throw methodNotAllowed(method);
+            }
+            return;
+        }
+        Adopter adopter = manager.findAdopterById(parseId(path[0]));
+        if (adopter == null) {
+            throw new HttpError(404, "No adopter with id " + path[0]);
+        }
+        if (path.length == 2 && path[1].equals("pets") && method.equals("GET")) {
+            sendPage(exchange, parseQuery(exchange), manager.getPetsOf(adopter), Json::writePet);
+            return;
+        }
+        if (path.length != 1) {
+            throw new HttpError(404, "No such resource");
+        }
+        switch (method) {
+            case "GET":
+                break;
+            case "PATCH":
+                manager.updateAdopterPhone(adopter, requiredText(readBody(exchange), "phone"));
+                break;
+            case "DELETE":
+                if (!manager.removeAdopter(adopter)) {
+                    throw new HttpError(404, "No adopter with id " + path[0]);
+                }
+                sendEmpty(exchange, 204);
+                return;
+            default:
+                throw methodNotAllowed(method);
+        }
+        sendRecord(exchange, 200, adopter, Json::writeAdopter);
+    }
+
+    private void statistics(HttpExchange exchange, String[] path) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw methodNotAllowed(exchange.getRequestMethod());
+        }
+        ShelterStatistics statistics = manager.getStatistics();
+        StringBuilder out = new StringBuilder(256);
+        out.append("{\"pets\":").append(statistics.getPetCount())
+                .append(",\"adopted\":").append(statistics.getAdoptedCount())
+                .append(",\"available\":").append(statistics.getAvailableCount())
+                .append(",\"adopters\":").append(statistics.getAdopterCount())
+                .append(",\"adoptersWithPets\":").append(statistics.getAdoptersWithPets())
+                .append(",\"species\":{");
+        String separator = "";
+        for (Map.Entry<String, Integer> entry : statistics.getSpeciesCounts().entrySet()) {
+            out.append(separator);
+            Json.writeString(out, entry.getKey());
+            out.append(':').append(entry.getValue());
+            separator = ",";
+        }
+        out.append("}}");
+        send(exchange, 200, JSON, out.toString());
+    }
+
+    private void metrics(HttpExchange exchange, String[] path) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw methodNotAllowed(exchange.getRequestMethod());
+        }
+        send(exchange, 200, "text/plain; charset=utf-8", manager.getMetrics().dump());
+    }
+
+    private static <T> void sendRecord(HttpExchange exchange, int status, T record, Encoder<T> encoder) throws IOException {
+        StringBuilder out = new StringBuilder(160);
+        encoder.encode(record, out);
+        send(exchange, status, JSON, out.toString());
+    }
+
+    // {"total": n, "offset": o, "limit": l, "items": [...]}; a page longer than STREAM_THRESHOLD is streamed.
+    private static <T> void sendPage(HttpExchange exchange, Map<String, String> query, List<T> matches, Encoder<T> encoder) throws IOException {
+        int offset = pageOffset(query);
+        int limit = pageLimit(query);
+        int from = Math.min(offset, matches.size());
+        int to = (int) Math.min(matches.size(), (long) from + limit);
+        sendPage(exchange, offset, limit, matches.size(), matches.subList(from, to), encoder);
+    }
+
+    private static <T> void sendPage(HttpExchange exchange, int offset, int limit, int total, List<T> items, Encoder<T> encoder) throws IOException {
+        String header = "{\"total\":" + total + ",\"offset\":" + offset + ",\"limit\":" + limit + ",\"items\":[";
+        if (items.size() <= STREAM_THRESHOLD) {
+            StringBuilder out = new StringBuilder(header.length() + 160 * items.size() + 2).append(header);
+            appendItems(out, items, encoder);
+            send(exchange, 200, JSON, out.append("]}").toString());
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 16 * 1024)) {
+            out.write(header);
+            appendItems(out, items, encoder);
+            out.write("]}");
+        }
+    }
+
+    private static int pageOffset(Map<String, String> query) {
+        return Math.max(0, optionalInt(query.get("offset"), 0));
+    }
+
+    private static int pageLimit(Map<String, String> query) {
+        return Math.max(0, optionalInt(query.get("limit"), DEFAULT_PAGE_SIZE));
+    }
+
+    private static <T> void appendItems(Appendable out, List<T> items, Encoder<T> encoder) throws IOException {
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) out.append(',');
+            encoder.encode(items.get(i), out);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    // Once a streamed response has started its status is committed, so the connection is just dropped.
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        try {
+            StringBuilder out = new StringBuilder("{\"error\":");
+            Json.writeString(out, message);
+            send(exchange, status, JSON, out.append('}').toString());
+        } catch (IOException e) {
+            System.err.println("Error sending " + status + " response: " + e.getMessage());
+        }
+    }
+
+    private static HttpError methodNotAllowed(String method) {
+        return new HttpError(405, method + " is not supported here");
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            if (!key.isEmpty() && !value.isEmpty()) query.put(key, value);
+        }
+        return query;
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Invalid id " + value);
+        }
+    }
+
+    private static Integer optionalInt(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Invalid number " + value);
+        }
+    }
+
+    private static int optionalInt(String value, int defaultValue) {
+        Integer parsed = optionalInt(value);
+        return parsed == null ? defaultValue : parsed;
+    }
+
+    // Every field of a request is checked here before any record is built or changed; the manager interns the
+    // species and health status only when it stores the pet.
+    private static String requiredText(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (!(value instanceof String) || ((String) value).trim().isEmpty()) {
+            throw new HttpError(400, "Missing " + field);
+        }
+        String text = ((String) value).trim();
+        if (text.length() > MAX_TEXT_LENGTH) {
+            throw new HttpError(400, field + " must be at most " + MAX_TEXT_LENGTH + " characters");
+        }
+        return text;
+    }
+
+    private static int age(Object value) {
+        if (!(value instanceof Long) || (Long) value < 0 || (Long) value > MAX_AGE) {
+            throw new HttpError(400, "age must be an integer from 0 to " + MAX_AGE);
+        }
+        return ((Long) value).intValue();
+    }
+
+    // Usage: ShelterServer [port] [dataDirectory]
+    public static void main(String[] args) throws IOException {
+        // Keep-alive responses are small; without TCP_NODELAY they wait on the peer's delayed ACK.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        File dataDirectory = new File(args.length > 1 ? args[1] : ".");
+        ShelterManager manager = new ShelterManager(dataDirectory);
+        manager.getMetrics().registerMBeans(dataDirectory.getAbsoluteFile().getName());
+        ShelterServer server = new ShelterServer(manager, new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            manager.close();
+        }, "shelter-shutdown"));
+        server.start();
+        System.out.println("Shelter API listening on port " + server.getPort() + " for " + dataDirectory.getAbsolutePath());
+    }
+}
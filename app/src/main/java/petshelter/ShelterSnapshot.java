@@ -0,0 +1,45 @@
+package petshelter;
+
+import java.util.List;
+
+// One published version of the shelter's records, from ShelterManager.snapshot(). It never changes once
+// published: its pets are the immutable stored records and its adopters frozen copies, so a reader can keep it as
+// long as it likes; versions no reader holds any more are left to the garbage collector, sharing whatever nodes
+// the newer versions still use.
+public final class ShelterSnapshot {
+    private final long version;
+    private final PersistentVector<Pet> pets;
+    private final PersistentVector<Adopter> adopters;
+    private final List<Pet> petList;
+    private final List<Adopter> adopterList;
+
+    ShelterSnapshot(long version, PersistentVector<Pet> pets, PersistentVector<Adopter> adopters) {
+        this.version = version;
+        this.pets = pets;
+        this.adopters = adopters;
+        this.petList = pets.asList();
+        this.adopterList = adopters.asList();
+    }
+
+    // Increases by one with every write that changed a record.
+    public long getVersion() {
+        return version;
+    }
+
+    // In the order the pets were added; get(i) is O(log n).
+    public List<Pet> getPets() {
+        return petList;
+    }
+
+    public List<Adopter> getAdopters() {
+        return adopterList;
+    }
+
+    PersistentVector<Pet> petVersions() {
+        return pets;
+    }
+
+    PersistentVector<Adopter> adopterVersions() {
+        return adopters;
+    }
+}
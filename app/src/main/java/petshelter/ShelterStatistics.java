@@ -0,0 +1,182 @@
+package petshelter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Aggregates kept current by ShelterManager's write paths, so every count lookup is O(1) for the query planner.
+// The copies handed to callers take their pet counts from a scan of the manager's PetColumns instead.
+// Species and health counts are indexed by the owning manager's SymbolTable codes. Species differing only in case
+// are counted together, as the species filters match them.
+public class ShelterStatistics {
+    private final SymbolTable species;
+    private final SymbolTable healthStatuses;
+    private int[] speciesCounts = new int[16];
+    private int[] healthCounts = new int[16];
+    private final Map<Integer, Integer> ageCounts = new HashMap<>();
+    private final Map<Integer, Integer> adoptionsByAdopter = new HashMap<>();
+    private int petCount;
+    private int adoptedCount;
+    private int adopterCount;
+
+    ShelterStatistics(SymbolTable species, SymbolTable healthStatuses) {
+        this.species = species;
+        this.healthStatuses = healthStatuses;
+    }
+
+    // A copy whose pet counts are recounted from the columns; the adopter counts are the maintained ones.
+    ShelterStatistics scan(PetColumns columns) {
+        ShelterStatistics result = new ShelterStatistics(species, healthStatuses);
+        result.petCount = columns.size();
+        result.adoptedCount = columns.countAdopted();
+        result.speciesCounts = columns.countBySpecies();
+        result.healthCounts = columns.countByHealthStatus();
+        result.ageCounts.putAll(columns.countByAge());
+        result.adoptionsByAdopter.putAll(adoptionsByAdopter);
+        result.adopterCount = adopterCount;
+        return result;
+    }
+
+    void petAdded(Pet pet) {
+        petCount++;
+        speciesCounts = increment(speciesCounts, species.code(pet.getSpecies()), 1);
+        healthChanged(null, pet.getHealthStatus());
+        ageCounts.merge(pet.getAge(), 1, Integer::sum);
+        if (isAdopted(pet.getAdopterName())) adoptedCount++;
+    }
+
+    void petRemoved(Pet pet) {
+        petCount--;
+        speciesCounts = increment(speciesCounts, species.code(pet.getSpecies()), -1);
+        healthChanged(pet.getHealthStatus(), null);
+        decrement(ageCounts, pet.getAge());
+        if (isAdopted(pet.getAdopterName())) adoptedCount--;
+    }
+
+    void healthChanged(String oldStatus, String newStatus) {
+        if (oldStatus != null) healthCounts = increment(healthCounts, healthStatuses.code(oldStatus), -1);
+        if (newStatus != null) healthCounts = increment(healthCounts, healthStatuses.code(newStatus), 1);
+    }
+
+    void ageChanged(int oldAge, int newAge) {
+        decrement(ageCounts, oldAge);
+        ageCounts.merge(newAge, 1, Integer::sum);
+    }
+
+    void adopterNameChanged(String oldName, String newName) {
+        adoptedCount += (isAdopted(newName) ? 1 : 0) - (isAdopted(oldName) ? 1 : 0);
+    }
+
+    void adopterAdded() {
+        adopterCount++;
+    }
+
+    void adopterRemoved(int adopterId) {
+        adopterCount--;
+        adoptionsByAdopter.remove(adopterId);
+    }
+
+    void linked(int adopterId) {
+        adoptionsByAdopter.merge(adopterId, 1, Integer::sum);
+    }
+
+    void unlinked(int adopterId) {
+        decrement(adoptionsByAdopter, adopterId);
+    }
+
+    public int getPetCount() {
+        return petCount;
+    }
+
+    public int getAdoptedCount() {
+        return adoptedCount;
+    }
+
+    public int getAvailableCount() {
+        return petCount - adoptedCount;
+    }
+
+    public int getAdopterCount() {
+        return adopterCount;
+    }
+
+    public int getAdoptersWithPets() {
+        return adoptionsByAdopter.size();
+    }
+
+    public int countAge(int age) {
+        return ageCounts.getOrDefault(age, 0);
+    }
+
+    public Map<String, Integer> getSpeciesCounts() {
+        return speciesCounts(speciesCounts, species);
+    }
+
+    // Counts indexed by species code, keyed by name with spellings that differ only in case merged.
+    static Map<String, Integer> speciesCounts(int[] counts, SymbolTable species) {
+        return nonZero(counts, species, new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+    }
+
+    public Map<String, Integer> getHealthStatusCounts() {
+        return nonZero(healthCounts, healthStatuses, new TreeMap<>());
+    }
+
+    public Map<Integer, Integer> getAgeHistogram() {
+        return Collections.unmodifiableMap(new TreeMap<>(ageCounts));
+    }
+
+    // Keyed by adopter ID; adopters without pets are left out.
+    public Map<Integer, Integer> getAdoptionsByAdopter() {
+        return Collections.unmodifiableMap(new HashMap<>(adoptionsByAdopter));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ShelterStatistics)) return false;
+        ShelterStatistics other = (ShelterStatistics) o;
+        return petCount == other.petCount && adoptedCount == other.adoptedCount && adopterCount == other.adopterCount
+                && getSpeciesCounts().equals(other.getSpeciesCounts())
+                && getHealthStatusCounts().equals(other.getHealthStatusCounts())
+                && ageCounts.equals(other.ageCounts) && adoptionsByAdopter.equals(other.adoptionsByAdopter);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * petCount + adoptedCount) + adopterCount;
+    }
+
+    @Override
+    public String toString() {
+        return "pets=" + petCount + ", adopted=" + adoptedCount + ", adopters=" + adopterCount
+                + ", species=" + getSpeciesCounts() + ", health=" + getHealthStatusCounts()
+                + ", ages=" + getAgeHistogram() + ", adoptions=" + adoptionsByAdopter;
+    }
+
+    private static boolean isAdopted(String adopterName) {
+        return adopterName != null && !adopterName.isEmpty();
+    }
+
+    private static int[] increment(int[] counts, int code, int delta) {
+        if (code >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(code + 1, counts.length << 1));
+        }
+        counts[code] += delta;
+        return counts;
+    }
+
+    private static void decrement(Map<Integer, Integer> counts, int key) {
+        counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static Map<String, Integer> nonZero(int[] counts, SymbolTable symbols, Map<String, Integer> result) {
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] != 0) {
+                result.merge(symbols.value(code), counts[code], Integer::sum);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,44 @@
+package petshelter;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Maps each distinct string to a small, dense code and back. Each ShelterManager keeps one table for species and
+// one for health statuses and interns a pet's values when it stores the pet, so stored pets with the same value
+// share one String. Keys are the exact strings; case-insensitive matching is left to the callers. Codes are never
+// reclaimed, so a table grows with the distinct values its owner has seen. Lookups are lock-free; only a new value
+// takes the lock.
+public final class SymbolTable {
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    public int code(String value) {
+        Integer code = codes.get(value);
+        if (code != null) return code;
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) return code;
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size << 1);
+            }
+            current[size] = value;
+            values = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    public String value(int code) {
+        return values[code];
+    }
+
+    public String intern(String value) {
+        return value == null ? null : value(code(value));
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
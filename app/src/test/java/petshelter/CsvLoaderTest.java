@@ -0,0 +1,100 @@
+package petshelter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static petshelter.RecordCodecTest.assertPetEquals;
+import static petshelter.RecordCodecTest.pet;
+
+class CsvLoaderTest {
+    private static final CsvLoader.LineParser<Pet> PETS = RecordCodec::decodePet;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void missingFileLoadsNothing() throws IOException {
+        CsvLoader.Result<Pet> result = CsvLoader.load(new File(directory, "absent.txt"), PETS, false, ForkJoinPool.commonPool());
+        assertTrue(result.getRecords().isEmpty());
+        assertTrue(result.getErrors().isEmpty());
+    }
+
+    @Test
+    void reportsBadLinesByNumberAndKeepsTheRest() throws IOException {
+        File file = write("pets.txt", "Dog,Rex,3,Healthy,null,1,0\r\n"
+                + "\n"
+                + "Cat,Tom\n"
+                + "\"Guinea, pig\",\"Mr \"\"P\"\"\\nII\",2,Healthy,\"null\",2,0\n"
+                + "Dog,Fido,old,Healthy\n"
+                + "Dog,Last,1,Healthy");
+        CsvLoader.Result<Pet> result = CsvLoader.load(file, PETS, false, ForkJoinPool.commonPool());
+
+        assertEquals(3, result.getRecords().size());
+        assertPetEquals(pet("Dog", "Rex", 3, "Healthy", null, 1, 0), result.getRecords().get(0));
+        assertPetEquals(pet("Guinea, pig", "Mr \"P\"\nII", 2, "Healthy", "null", 2, 0), result.getRecords().get(1));
+        assertPetEquals(pet("Dog", "Last", 1, "Healthy", null, 0, 0), result.getRecords().get(2));
+        assertEquals(2, result.getErrors().size());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertEquals("missing fields", result.getErrors().get(0).getMessage());
+        assertEquals(5, result.getErrors().get(1).getLine());
+    }
+
+    // Large enough to be split into several chunks, so chunk boundaries and line renumbering are exercised.
+    @Test
+    void parallelLoadMatchesSerialLoadAndEncodedRecords() throws IOException {
+        Random random = new Random(42);
+        RecordCodec codec = new RecordCodec();
+        List<Pet> pets = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        List<Long> badLines = new ArrayList<>();
+        for (int i = 0; i < 60000; i++) {
+            if (random.nextInt(1000) == 0) {
+                text.append("broken,line\n");
+                badLines.add((long) i + 1);
+                continue;
+            }
+            Pet pet = pet(random.nextBoolean() ? "Dog" : "Cat", "Pet, \"" + i + "\"\n" + random.nextInt(), random.nextInt(30),
+                    random.nextBoolean() ? "Healthy" : null, random.nextBoolean() ? null : "Owner " + i, i + 1, 0);
+            pets.add(pet);
+            codec.encodePet(pet, text);
+            text.append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        File file = write("pets.txt", text.toString());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CsvLoader.Result<Pet> parallel = CsvLoader.load(file, PETS, true, pool);
+            CsvLoader.Result<Pet> serial = CsvLoader.load(file, PETS, false, pool);
+            for (CsvLoader.Result<Pet> result : List.of(parallel, serial)) {
+                assertEquals(pets.size(), result.getRecords().size());
+                for (int i = 0; i < pets.size(); i++) {
+                    assertPetEquals(pets.get(i), result.getRecords().get(i));
+                }
+                List<Long> errorLines = new ArrayList<>();
+                for (CsvLoader.ParseError error : result.getErrors()) {
+                    errorLines.add(error.getLine());
+                }
+                assertEquals(badLines, errorLines);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private File write(String name, String text) throws IOException {
+        File file = new File(directory, name);
+        Files.write(file.toPath(), text.getBytes(Charset.defaultCharset()));
+        return file;
+    }
+}
@@ -0,0 +1,115 @@
+package petshelter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The model moved by events has to show what the manager's own statistics show after every write.
+class DashboardModelTest {
+    @TempDir
+    File directory;
+
+    private ShelterManager manager;
+
+    @BeforeEach
+    void open() {
+        manager = new ShelterManager(directory, 256, 5, 60_000);
+    }
+
+    @AfterEach
+    void close() {
+        manager.close();
+    }
+
+    @Test
+    void eventsKeepTheModelEqualToTheStatistics() {
+        manager.addPet(new Pet("Dog", "Seeded", 4, "Healthy"));
+        DashboardModel[] model = new DashboardModel[1];
+        manager.addListener(events -> events.forEach(event -> model[0].apply(event)), Runnable::run);
+        model[0] = new DashboardModel(manager.snapshot());
+
+        Random random = new Random(17);
+        String[] species = {"Dog", "dog", "Cat", "Bird"};
+        String[] health = {"Healthy", "Recovering", "healthy"};
+        for (int step = 0; step < 3000; step++) {
+            String name = "Pet" + random.nextInt(60);
+            String adopterName = "Adopter" + random.nextInt(8);
+            Pet pet = manager.findPetByNameAndSpecies(name, species[random.nextInt(species.length)]);
+            Adopter adopter = manager.findAdopterByName(adopterName);
+            switch (random.nextInt(9)) {
+                case 0:
+                case 1:
+                    manager.addPet(new Pet(species[random.nextInt(species.length)], name, random.nextInt(15), health[random.nextInt(health.length)]));
+                    break;
+                case 2:
+                    if (pet != null) manager.removePet(pet);
+                    break;
+                case 3:
+                    if (pet != null) manager.updatePetHealth(pet, health[random.nextInt(health.length)]);
+                    break;
+                case 4:
+                    if (pet != null) manager.updatePetAge(pet, random.nextInt(15));
+                    break;
+                case 5:
+                    if (pet != null && adopter != null) manager.adoptPet(pet, adopter);
+                    break;
+                case 6:
+                    if (pet != null) manager.returnPetToShelter(pet);
+                    break;
+                case 7:
+                    if (adopter == null) {
+                        manager.addAdopter(new Adopter(adopterName, "555-0100"));
+                    } else {
+                        manager.updateAdopterPhone(adopter, "555-01" + random.nextInt(100));
+                    }
+                    break;
+                default:
+                    if (adopter != null) manager.removeAdopter(adopter);
+            }
+            assertMatches(manager.getStatistics(), model[0]);
+        }
+    }
+
+    // Pets loaded before their adopter are linked when it is added, and the model has to count those links too.
+    @Test
+    void linksMadeWhenAnAdopterArrivesAreCounted() {
+        DashboardModel[] model = new DashboardModel[1];
+        manager.addListener(events -> events.forEach(event -> model[0].apply(event)), Runnable::run);
+        model[0] = new DashboardModel(manager.snapshot());
+        Pet rex = new Pet("Dog", "Rex", 3, "Healthy");
+        rex.setAdopterName("Ann");
+        manager.addPet(rex);
+        Adopter ann = new Adopter("Ann", "555-0100");
+        ann.addAdoptedPetName("Dog:Rex");
+        manager.addAdopter(ann);
+
+        assertMatches(manager.getStatistics(), model[0]);
+        assertEquals(List.of(Map.entry("Ann", 1)), model[0].topAdopters(5));
+    }
+
+    private void assertMatches(ShelterStatistics expected, DashboardModel actual) {
+        assertEquals(expected.getPetCount(), actual.getPetCount());
+        assertEquals(expected.getAdoptedCount(), actual.getAdoptedCount());
+        assertEquals(expected.getAvailableCount(), actual.getAvailableCount());
+        assertEquals(expected.getAdopterCount(), actual.getAdopterCount());
+        assertEquals(expected.getAdoptersWithPets(), actual.getAdoptersWithPets());
+        assertEquals(expected.getSpeciesCounts(), actual.getSpeciesCounts());
+        assertEquals(expected.getHealthStatusCounts(), actual.getHealthStatusCounts());
+        assertEquals(expected.getAgeHistogram(), actual.getAgeHistogram());
+        Map<String, Integer> adoptions = new HashMap<>();
+        expected.getAdoptionsByAdopter().forEach((id, count) -> adoptions.put(manager.findAdopterById(id).getName(), count));
+        for (Map.Entry<String, Integer> entry : actual.topAdopters(Integer.MAX_VALUE)) {
+            assertEquals(adoptions.remove(entry.getKey()), entry.getValue());
+        }
+        assertEquals(Map.of(), adoptions);
+    }
+}
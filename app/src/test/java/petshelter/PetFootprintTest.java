@@ -0,0 +1,51 @@
+package petshelter;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Backs the retained-size figure for decoded pets: about 100 bytes each with compressed oops, of which the
+// species and health status strings are shared rather than copied per pet.
+class PetFootprintTest {
+    private static final int PETS = 200_000;
+    private static final double MAX_BYTES_PER_PET = 112;
+
+    @Test
+    void decodedPetsShareSpeciesAndHealthStrings() {
+        RecordCodec codec = new RecordCodec();
+        Pet first = decode(codec, "Dog,Rex,3,Needs vaccination,null,1,0");
+        Pet second = decode(codec, new StringBuilder("Dog,Max,4,Needs vaccination,null,2,0").toString());
+        assertSame(first.getSpecies(), second.getSpecies());
+        assertSame(first.getHealthStatus(), second.getHealthStatus());
+    }
+
+    @Test
+    void decodedPetsStayUnderTheRetainedSizeBudget() {
+        String[] species = {"Dog", "Cat", "Rabbit", "Parrot"};
+        String[] health = {"Healthy", "Needs vaccination", "Recovering"};
+        RecordCodec codec = new RecordCodec();
+        Pet[] pets = new Pet[PETS];
+        long before = usedHeap();
+        for (int i = 0; i < PETS; i++) {
+            String line = species[i % species.length] + ",Pet" + i + "," + (i % 20) + "," + health[i % health.length] + ",null," + (i + 1) + ",0";
+            pets[i] = decode(codec, line);
+        }
+        double bytesPerPet = (usedHeap() - before) / (double) PETS;
+        assertTrue(bytesPerPet < MAX_BYTES_PER_PET, "retained " + bytesPerPet + " bytes per pet");
+        assertTrue(pets[PETS - 1].getId() == PETS);
+    }
+
+    private static Pet decode(RecordCodec codec, String line) {
+        return codec.decodePet(line, 0, line.length());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
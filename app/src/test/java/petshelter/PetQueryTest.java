@@ -0,0 +1,164 @@
+package petshelter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A page of a query is the same slice of the full result whichever access path the planner takes.
+class PetQueryTest {
+    @TempDir
+    File directory;
+
+    private ShelterManager manager;
+
+    @BeforeEach
+    void open() {
+        manager = new ShelterManager(directory, 256, 5, 60_000);
+        manager.addAdopter(new Adopter("Ann", "555-0100"));
+        manager.addAdopter(new Adopter("Bob", "555-0101"));
+        Adopter ann = manager.findAdopterByName("Ann");
+        Adopter bob = manager.findAdopterByName("Bob");
+        for (int i = 0; i < 300; i++) {
+            manager.addPet(new Pet(i % 3 == 0 ? "Dog" : "Cat", "Pet" + i, i % 17, i % 5 == 0 ? "Recovering" : "Healthy"));
+            if (i % 7 == 0) manager.adoptPet(manager.findPetByNameAndSpecies("Pet" + i, i % 3 == 0 ? "Dog" : "Cat"), ann);
+            if (i % 50 == 1) manager.adoptPet(manager.findPetByNameAndSpecies("Pet" + i, i % 3 == 0 ? "Dog" : "Cat"), bob);
+        }
+    }
+
+    @AfterEach
+    void close() {
+        manager.close();
+    }
+
+    @Test
+    void pagesAndCountsAgreeWithTheFullResult() {
+        List<Supplier<PetQuery>> queries = List.of(
+                () -> manager.queryPets(),
+                () -> manager.queryPets().species("dog").adopted(false),
+                () -> manager.queryPets().ageBetween(3, 9).orderBy(PetQuery.SortKey.AGE, false),
+                () -> manager.queryPets().nameContains("et1").orderBy(PetQuery.SortKey.NAME, true),
+                () -> manager.queryPets().adoptedBy("Ann").healthStatus("Healthy"),
+                () -> manager.queryPets().nameStartsWith("Pet2").orderBy(PetQuery.SortKey.AGE, true));
+        for (Supplier<PetQuery> query : queries) {
+            List<Pet> all = query.get().list();
+            assertEquals(all.size(), query.get().count());
+            assertEquals(all.size(), query.get().offset(7).limit(3).count());
+            for (int offset : new int[] {0, 1, 10, all.size() / 2, all.size(), all.size() + 5}) {
+                List<Pet> page = query.get().offset(offset).limit(10).list();
+                List<Pet> expected = all.subList(Math.min(offset, all.size()), Math.min(all.size(), offset + 10));
+                assertEquals(expected.size(), page.size());
+                for (int i = 0; i < page.size(); i++) {
+                    assertEquals(expected.get(i).getId(), page.get(i).getId());
+                }
+            }
+        }
+    }
+
+    // Every combination of criteria, unpaged and paged, against a brute-force filter of getAllPets(); across them
+    // the planner has to have chosen each of its access paths at least once.
+    @Test
+    void everyCriterionAndAccessPathAgreesWithAFullFilter() {
+        String[] speciesValues = {null, "dog", "CAT", "Bird"};
+        Integer[][] ageRanges = {{null, null}, {3, 9}, {10, null}, {null, 2}, {9, 3}};
+        String[] healthValues = {null, "recovering"};
+        Boolean[] adoptedValues = {null, true, false};
+        String[] containsValues = {null, "et1", "zz"};
+        String[] prefixValues = {null, "pet2"};
+        String[] adopterValues = {null, "ann", "Bob", "Nobody"};
+        PetQuery.SortKey[] sortKeys = {null, PetQuery.SortKey.AGE, PetQuery.SortKey.NAME};
+        List<Pet> all = manager.getAllPets();
+        Set<String> plans = new TreeSet<>();
+        int combinations = speciesValues.length * ageRanges.length * healthValues.length * adoptedValues.length
+                * containsValues.length * prefixValues.length * adopterValues.length * sortKeys.length * 2;
+        for (int n = 0; n < combinations; n++) {
+            int k = n;
+            String species = speciesValues[k % speciesValues.length];
+            k /= speciesValues.length;
+            Integer[] ages = ageRanges[k % ageRanges.length];
+            k /= ageRanges.length;
+            String health = healthValues[k % healthValues.length];
+            k /= healthValues.length;
+            Boolean adopted = adoptedValues[k % adoptedValues.length];
+            k /= adoptedValues.length;
+            String contains = containsValues[k % containsValues.length];
+            k /= containsValues.length;
+            String prefix = prefixValues[k % prefixValues.length];
+            k /= prefixValues.length;
+            String adopter = adopterValues[k % adopterValues.length];
+            k /= adopterValues.length;
+            PetQuery.SortKey sortKey = sortKeys[k % sortKeys.length];
+            boolean ascending = k / sortKeys.length == 0;
+            if (sortKey == null && !ascending) continue;
+
+            Supplier<PetQuery> query = () -> {
+                PetQuery q = manager.queryPets().species(species).minAge(ages[0]).maxAge(ages[1]).healthStatus(health)
+                        .adopted(adopted).nameContains(contains).nameStartsWith(prefix).adoptedBy(adopter);
+                return sortKey == null ? q : q.orderBy(sortKey, ascending);
+            };
+            Predicate<Pet> oracle = pet -> (species == null || species.equalsIgnoreCase(pet.getSpecies()))
+                    && (ages[0] == null || pet.getAge() >= ages[0])
+                    && (ages[1] == null || pet.getAge() <= ages[1])
+                    && (health == null || health.equalsIgnoreCase(pet.getHealthStatus()))
+                    && (adopted == null || adopted == (pet.getAdopterName() != null))
+                    && (contains == null || pet.getName().toLowerCase().contains(contains.toLowerCase()))
+                    && (prefix == null || pet.getName().toLowerCase().startsWith(prefix.toLowerCase()))
+                    && (adopter == null || adopter.equalsIgnoreCase(pet.getAdopterName()));
+            List<Pet> expected = new ArrayList<>();
+            for (Pet pet : all) {
+                if (oracle.test(pet)) expected.add(pet);
+            }
+            Comparator<Pet> order = sortKey == null ? null : sortKey.comparator(ascending);
+            if (order != null) expected.sort(order);
+
+            String plan = query.get().explain();
+            plans.add(plan);
+            assertMatches(expected, order != null, query.get().list(), plan);
+            assertEquals(expected.size(), query.get().count(), plan);
+
+            String pagePlan = query.get().offset(2).limit(5).explain();
+            plans.add(pagePlan);
+            PetQuery.Result page = query.get().offset(2).limit(5).listWithTotal();
+            assertEquals(expected.size(), page.getTotal(), pagePlan);
+            if (order != null) {
+                assertMatches(expected.subList(Math.min(2, expected.size()), Math.min(7, expected.size())), true, page.getPets(), pagePlan);
+            } else {
+                assertEquals(Math.max(0, Math.min(5, expected.size() - 2)), page.getPets().size(), pagePlan);
+                assertTrue(expected.containsAll(page.getPets()), pagePlan);
+            }
+        }
+        for (QueryPlanner.Path path : QueryPlanner.Path.values()) {
+            assertTrue(plans.stream().anyMatch(plan -> plan.startsWith("access: " + path.label())), "never chose " + path);
+        }
+    }
+
+    private static void assertMatches(List<Pet> expected, boolean ordered, List<Pet> actual, String description) {
+        List<Integer> expectedIds = ids(expected);
+        List<Integer> actualIds = ids(actual);
+        if (!ordered) {
+            expectedIds.sort(null);
+            actualIds.sort(null);
+        }
+        assertEquals(expectedIds, actualIds, description);
+    }
+
+    private static List<Integer> ids(List<Pet> pets) {
+        List<Integer> ids = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            ids.add(pet.getId());
+        }
+        return ids;
+    }
+}
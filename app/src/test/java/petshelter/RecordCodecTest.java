@@ -0,0 +1,150 @@
+package petshelter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecordCodecTest {
+    private static final String[] SPECIES = {"Dog", "Cat", "Guinea, pig", "\"Quoted\"", "null", "none", "Chaté"};
+    private static final char[] ALPHABET = "abcXYZ 09,\";\\\n\r\t'é猫".toCharArray();
+    private static final String[] SPECIAL = {"", " ", "null", "none", "\"", "\"\"", ",", "\\", "\\n", ";", "a;b", "\\;"};
+
+    private final RecordCodec codec = new RecordCodec();
+
+    @Test
+    void petWithSeparatorsQuotesAndLineBreaksRoundTrips() {
+        Pet pet = pet("Dog", "Rex, \"the\" dog\nof\r\nthe \\ yard", 7, "Needs, vaccination", "O'Brien, \"Al\"", 12, 34);
+        assertPetEquals(pet, roundTrip(pet));
+    }
+
+    @Test
+    void nullFieldsAndLiteralMarkersStayDistinct() {
+        Pet available = pet("Cat", "Tom", 2, null, null, 1, 0);
+        Pet adoptedByNull = pet("Cat", "null", 2, "null", "null", 2, 3);
+        Pet adoptedByNone = pet("Cat", "none", 2, "none", "none", 4, 5);
+        Pet adoptedByEmpty = pet("Cat", "", 2, "", "", 6, 7);
+        for (Pet pet : List.of(available, adoptedByNull, adoptedByNone, adoptedByEmpty)) {
+            assertPetEquals(pet, roundTrip(pet));
+        }
+
+        assertAdopterEquals(adopter("Ann", null, 1), roundTrip(adopter("Ann", null, 1)));
+        assertAdopterEquals(adopter("null", "null", 2), roundTrip(adopter("null", "null", 2)));
+        assertAdopterEquals(adopter("none", "none", 3, "none"), roundTrip(adopter("none", "none", 3, "none")));
+    }
+
+    @Test
+    void adoptedPetNamesWithSeparatorsRoundTrip() {
+        Adopter adopter = adopter("Bea, \"B\"", "555\n0100", 9, "Dog:Rex;Jr", "Cat:Back\\slash", "Fish:a,b", "Bird:\"q\"", "Dog:\\;");
+        assertAdopterEquals(adopter, roundTrip(adopter));
+    }
+
+    @Test
+    void linesWithoutTrailingIdColumnsStillLoad() {
+        Pet legacy = codec.decodePet("Dog,Rex,3,Healthy,Ann", 0, 21);
+        assertPetEquals(pet("Dog", "Rex", 3, "Healthy", "Ann", 0, 0), legacy);
+        Pet noAdopter = codec.decodePet("Dog,Rex,3,Healthy", 0, 17);
+        assertPetEquals(pet("Dog", "Rex", 3, "Healthy", null, 0, 0), noAdopter);
+        Pet noAdopterId = codec.decodePet("Dog,Rex,3,Healthy,null,5", 0, 24);
+        assertPetEquals(pet("Dog", "Rex", 3, "Healthy", null, 5, 0), noAdopterId);
+
+        assertAdopterEquals(adopter("Ann", "555", 0, "Dog:Rex"), codec.decodeAdopter("Ann,555,Dog:Rex", 0, 15));
+        assertAdopterEquals(adopter("Ann", "555", 0), codec.decodeAdopter("Ann,555", 0, 7));
+        assertAdopterEquals(adopter("Ann", "555", 0), codec.decodeAdopter("Ann,555,none", 0, 12));
+    }
+
+    @Test
+    void decodesOnlyTheGivenRange() {
+        String text = "junk\nDog,Rex,3,Healthy,null,5,0\njunk";
+        assertPetEquals(pet("Dog", "Rex", 3, "Healthy", null, 5, 0), codec.decodePet(text, 5, text.indexOf('\n', 5)));
+    }
+
+    @Test
+    void incompleteOrMalformedLinesAreRejected() {
+        assertNull(codec.decodePet("Dog,Rex,3", 0, 9));
+        assertNull(codec.decodeAdopter("Ann", 0, 3));
+        assertThrows(NumberFormatException.class, () -> codec.decodePet("Dog,Rex,three,Healthy", 0, 21));
+        assertThrows(NumberFormatException.class, () -> codec.decodePet("Dog,Rex,99999999999,Healthy", 0, 27));
+        assertThrows(NumberFormatException.class, () -> codec.decodePet("Dog,Rex,,Healthy", 0, 16));
+    }
+
+    @Test
+    void randomRecordsRoundTrip() {
+        Random random = new Random(20261018);
+        for (int i = 0; i < 20000; i++) {
+            Pet pet = pet(SPECIES[random.nextInt(SPECIES.length)], text(random, false), random.nextInt(),
+                    nullable(random), nullable(random), random.nextInt(Integer.MAX_VALUE), random.nextInt(Integer.MAX_VALUE));
+            assertPetEquals(pet, roundTrip(pet));
+
+            String[] adopted = new String[random.nextInt(4)];
+            for (int j = 0; j < adopted.length; j++) {
+                adopted[j] = "x" + text(random, false);
+            }
+            Adopter adopter = adopter(text(random, false), nullable(random), random.nextInt(Integer.MAX_VALUE), adopted);
+            assertAdopterEquals(adopter, roundTrip(adopter));
+        }
+    }
+
+    private Pet roundTrip(Pet pet) {
+        StringBuilder line = new StringBuilder();
+        codec.encodePet(pet, line);
+        return codec.decodePet(line, 0, line.length());
+    }
+
+    private Adopter roundTrip(Adopter adopter) {
+        StringBuilder line = new StringBuilder();
+        codec.encodeAdopter(adopter, line);
+        return codec.decodeAdopter(line, 0, line.length());
+    }
+
+    private static String nullable(Random random) {
+        return random.nextInt(5) == 0 ? null : text(random, true);
+    }
+
+    private static String text(Random random, boolean special) {
+        if (special && random.nextInt(4) == 0) return SPECIAL[random.nextInt(SPECIAL.length)];
+        char[] chars = new char[random.nextInt(12)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    static Pet pet(String species, String name, int age, String healthStatus, String adopterName, int id, int adopterId) {
+        Pet pet = new Pet(species, name, age, healthStatus);
+        pet.setAdopterName(adopterName);
+        pet.setId(id);
+        pet.setAdopterId(adopterId);
+        return pet;
+    }
+
+    static Adopter adopter(String name, String phone, int id, String... adoptedPetNames) {
+        Adopter adopter = new Adopter(name, phone);
+        adopter.setId(id);
+        for (String petIdentifier : adoptedPetNames) {
+            adopter.addAdoptedPetName(petIdentifier);
+        }
+        return adopter;
+    }
+
+    static void assertPetEquals(Pet expected, Pet actual) {
+        assertEquals(expected.getSpecies(), actual.getSpecies(), "species");
+        assertEquals(expected.getName(), actual.getName(), "name");
+        assertEquals(expected.getAge(), actual.getAge(), "age");
+        assertEquals(expected.getHealthStatus(), actual.getHealthStatus(), "health status");
+        assertEquals(expected.getAdopterName(), actual.getAdopterName(), "adopter name");
+        assertEquals(expected.getId(), actual.getId(), "id");
+        assertEquals(expected.getAdopterId(), actual.getAdopterId(), "adopter id");
+    }
+
+    static void assertAdopterEquals(Adopter expected, Adopter actual) {
+        assertEquals(expected.getName(), actual.getName(), "name");
+        assertEquals(expected.getPhone(), actual.getPhone(), "phone");
+        assertEquals(expected.getAdoptedPetNames(), actual.getAdoptedPetNames(), "adopted pets");
+        assertEquals(expected.getId(), actual.getId(), "id");
+    }
+}
@@ -0,0 +1,72 @@
+package petshelter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedShelterManagerTest {
+    private static final List<String> SHELTERS = List.of("north", "south");
+
+    @TempDir
+    File root;
+
+    @Test
+    void crossShelterAdoptionMovesThePet() {
+        ShardedShelterManager manager = new ShardedShelterManager(root, SHELTERS);
+        try {
+            assertTrue(manager.addPet("north", new Pet("Dog", "Rex", 3, "Healthy")));
+            assertTrue(manager.addAdopter("south", new Adopter("Ann", "555-0100")));
+
+            Pet rex = manager.findPetByNameAndSpecies("Rex", "Dog");
+            assertTrue(manager.adoptPet(rex, manager.findAdopterByName("Ann")));
+            assertEquals("south", manager.shelterOf(rex));
+            assertNull(manager.getShelter("north").findPetByNameAndSpecies("Rex", "Dog"));
+            assertEquals("Ann", manager.findPetByNameAndSpecies("Rex", "Dog").getAdopterName());
+        } finally {
+            manager.close();
+        }
+    }
+
+    // What a crash between copying the pet and removing it from its old shelter leaves behind.
+    @Test
+    void openingDropsTheAvailableCopyOfAPetAdoptedElsewhere() {
+        ShelterManager north = new ShelterManager(directory("north"), 1, 5, 60_000);
+        ShelterManager south = new ShelterManager(directory("south"), 1, 5, 60_000);
+        try {
+            assertTrue(north.addPet(new Pet("Dog", "Rex", 3, "Healthy")));
+            assertTrue(north.addPet(new Pet("Cat", "Tom", 2, "Healthy")));
+            assertTrue(south.addAdopter(new Adopter("Ann", "555-0100")));
+            assertTrue(south.addPet(new Pet("Dog", "Rex", 3, "Healthy")));
+            assertTrue(south.adoptPet(south.findPetByNameAndSpecies("Rex", "Dog"), south.findAdopterByName("Ann")));
+        } finally {
+            north.close();
+            south.close();
+        }
+
+        ShardedShelterManager manager = new ShardedShelterManager(root, SHELTERS);
+        try {
+            assertNull(manager.getShelter("north").findPetByNameAndSpecies("Rex", "Dog"));
+            Pet rex = manager.findPetByNameAndSpecies("Rex", "Dog");
+            assertNotNull(rex);
+            assertEquals("Ann", rex.getAdopterName());
+            assertEquals("south", manager.shelterOf(rex));
+            assertEquals(2, manager.getAllPets().size());
+            assertTrue(manager.getShelter("north").verifyStatistics());
+        } finally {
+            manager.close();
+        }
+    }
+
+    private File directory(String name) {
+        File directory = new File(root, name);
+        assertTrue(directory.mkdirs());
+        return directory;
+    }
+}
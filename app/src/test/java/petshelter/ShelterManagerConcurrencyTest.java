@@ -0,0 +1,302 @@
+package petshelter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Readers and writers race on one manager; afterwards the maintained indexes, statistics, snapshot and event
+// stream must all agree with the records.
+class ShelterManagerConcurrencyTest {
+    private static final String[] SPECIES = {"Dog", "Cat", "Rabbit"};
+    private static final String[] HEALTH = {"Healthy", "Recovering"};
+    private static final int WRITERS = 3;
+    private static final int READERS = 3;
+    private static final int OPERATIONS = 4000;
+    private static final int KEYS = 64;
+
+    @TempDir
+    File directory;
+
+    private ShelterManager manager;
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void open() {
+        manager = new ShelterManager(directory, 256, 5, 20);
+    }
+
+    @AfterEach
+    void close() {
+        manager.close();
+    }
+
+    @Test
+    void readersSeeConsistentStateWhileWritersRace() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            manager.addAdopter(new Adopter("Adopter" + i, "555-010" + i));
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        for (int w = 0; w < WRITERS; w++) {
+            long seed = w;
+            threads.add(start(() -> {
+                try {
+                    write(new Random(seed));
+                } finally {
+                    writersDone.countDown();
+                }
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            long seed = 100 + r;
+            threads.add(start(() -> read(new Random(seed), writing)));
+        }
+        assertTrue(writersDone.await(2, TimeUnit.MINUTES), "writers did not finish");
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+        }
+        assertNoFailures();
+
+        assertTrue(manager.verifyStatistics());
+        assertConsistent(manager);
+    }
+
+    // Every batch is delivered after its write is published, and a serial executor sees the batches in commit
+    // order, so replaying the events over an empty shelter gives the final state.
+    @Test
+    void eventsArriveInCommitOrderAfterTheSnapshotIsPublished() throws Exception {
+        ExecutorService serial = Executors.newSingleThreadExecutor();
+        List<ShelterEvent> events = new ArrayList<>();
+        manager.addListener(batch -> {
+            ShelterSnapshot snapshot = manager.snapshot();
+            for (ShelterEvent event : batch) {
+                if (event.getType() == ShelterEvent.Type.PET_ADDED && snapshot.getVersion() == 0) {
+                    failures.add(new AssertionError("Event delivered before any snapshot was published: " + event));
+                }
+                if (event.getPet() != null && !event.getPet().isFrozen()) {
+                    failures.add(new AssertionError("Event carries a mutable pet: " + event));
+                }
+            }
+            events.addAll(batch);
+        }, serial);
+        manager.addAdopter(new Adopter("Adopter0", "555-0100"));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            long seed = 200 + w;
+            threads.add(start(() -> write(new Random(seed))));
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.MINUTES.toMillis(2));
+        }
+        serial.shutdown();
+        assertTrue(serial.awaitTermination(1, TimeUnit.MINUTES));
+        assertNoFailures();
+
+        Map<String, Boolean> present = new HashMap<>();
+        Map<String, Boolean> adopted = new HashMap<>();
+        for (ShelterEvent event : events) {
+            if (event.getPet() == null) continue;
+            String key = key(event.getPet());
+            switch (event.getType()) {
+                case PET_ADDED:
+                    assertFalse(present.getOrDefault(key, false), "added twice without a removal: " + key);
+                    present.put(key, true);
+                    adopted.put(key, false);
+                    break;
+                case PET_REMOVED:
+                    assertTrue(present.getOrDefault(key, false), "removed while absent: " + key);
+                    present.put(key, false);
+                    break;
+                case ADOPTION_LINKED:
+                    assertFalse(adopted.getOrDefault(key, false), "adopted twice: " + key);
+                    adopted.put(key, true);
+                    break;
+                case ADOPTION_UNLINKED:
+                    assertTrue(adopted.getOrDefault(key, false), "returned while available: " + key);
+                    adopted.put(key, false);
+                    break;
+                default:
+            }
+        }
+        Set<String> replayed = new HashSet<>();
+        present.forEach((key, isPresent) -> {
+            if (isPresent) replayed.add(key);
+        });
+        Set<String> actual = new HashSet<>();
+        for (Pet pet : manager.getAllPets()) {
+            actual.add(key(pet));
+            assertEquals(pet.getAdopterName() != null, adopted.get(key(pet)), "adoption state of " + key(pet));
+        }
+        assertEquals(actual, replayed);
+        assertTrue(manager.verifyStatistics());
+    }
+
+    // Writers share one key space, so adds, removals, updates and adoptions of the same pet interleave.
+    private void write(Random random) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            int k = random.nextInt(KEYS);
+            String species = SPECIES[k % SPECIES.length];
+            String name = "Pet" + k;
+            Pet pet = manager.findPetByNameAndSpecies(name, species);
+            switch (random.nextInt(6)) {
+                case 0:
+                    manager.addPet(new Pet(species, name, random.nextInt(20), HEALTH[random.nextInt(HEALTH.length)]));
+                    break;
+                case 1:
+                    if (pet != null) manager.removePet(pet);
+                    break;
+                case 2:
+                    if (pet != null) manager.updatePetAge(pet, random.nextInt(20));
+                    break;
+                case 3:
+                    if (pet != null) manager.updatePetHealth(pet, HEALTH[random.nextInt(HEALTH.length)]);
+                    break;
+                case 4: {
+                    Adopter adopter = manager.findAdopterByName("Adopter" + random.nextInt(4));
+                    if (pet != null && adopter != null) manager.adoptPet(pet, adopter);
+                    break;
+                }
+                default:
+                    if (pet != null) manager.returnPetToShelter(pet);
+            }
+        }
+    }
+
+    private void read(Random random, AtomicBoolean writing) {
+        long lastVersion = -1;
+        while (writing.get()) {
+            int k = random.nextInt(KEYS);
+            String species = SPECIES[k % SPECIES.length];
+            Pet found = manager.findPetByNameAndSpecies("Pet" + k, species);
+            if (found != null && (!found.getName().equals("Pet" + k) || !found.getSpecies().equals(species) || !found.isFrozen())) {
+                throw new AssertionError("Optimistic lookup of Pet" + k + " returned " + found);
+            }
+
+            ShelterSnapshot snapshot = manager.snapshot();
+            if (snapshot.getVersion() < lastVersion) {
+                throw new AssertionError("Snapshot version went back from " + lastVersion + " to " + snapshot.getVersion());
+            }
+            lastVersion = snapshot.getVersion();
+            Set<String> keys = new HashSet<>();
+            int count = 0;
+            for (Pet pet : snapshot.getPets()) {
+                if (!pet.isFrozen()) throw new AssertionError("Snapshot holds a live pet " + pet);
+                if (!keys.add(key(pet))) throw new AssertionError("Snapshot holds " + pet + " twice");
+                count++;
+            }
+            assertEquals(snapshot.getPets().size(), count);
+
+            switch (random.nextInt(5)) {
+                case 0:
+                    for (Pet pet : manager.filterPetsBySpecies(species)) {
+                        if (!pet.getSpecies().equals(species) || !pet.isFrozen()) throw new AssertionError("Species filter returned " + pet);
+                    }
+                    break;
+                case 1:
+                    for (Pet pet : manager.filterPetsByAge(5, 9)) {
+                        if (pet.getAge() < 5 || pet.getAge() > 9 || !pet.isFrozen()) throw new AssertionError("Age filter returned " + pet);
+                    }
+                    break;
+                case 2:
+                    for (Pet pet : manager.searchPetsByName("et" + k)) {
+                        if (!pet.getName().contains("et" + k) || !pet.isFrozen()) throw new AssertionError("Name search returned " + pet);
+                    }
+                    break;
+                case 3:
+                    for (Pet pet : manager.queryPets().species(species).adopted(false).list()) {
+                        if (!pet.getSpecies().equals(species) || pet.getAdopterName() != null || !pet.isFrozen()) {
+                            throw new AssertionError("Query returned " + pet);
+                        }
+                    }
+                    break;
+                default:
+                    ShelterStatistics statistics = manager.getStatistics();
+                    if (statistics.getPetCount() < 0 || statistics.getPetCount() > KEYS) {
+                        throw new AssertionError("Statistics count " + statistics.getPetCount());
+                    }
+            }
+        }
+    }
+
+    // The snapshot, the indexes and the adopters' lists all describe the same pets.
+    static void assertConsistent(ShelterManager manager) {
+        List<Pet> pets = manager.getAllPets();
+        assertEquals(pets.size(), manager.getStatistics().getPetCount());
+        assertEquals(pets.size(), manager.queryPets().list().size());
+        assertEquals(pets.size(), manager.sortPetsByAge().size());
+        int adoptedCount = 0;
+        for (Pet pet : pets) {
+            Pet live = manager.findPetByNameAndSpecies(pet.getName(), pet.getSpecies());
+            assertNotNull(live, "snapshot pet missing from the index: " + pet);
+            assertEquals(pet.getAge(), live.getAge());
+            assertEquals(pet.getHealthStatus(), live.getHealthStatus());
+            assertEquals(pet.getAdopterName(), live.getAdopterName());
+            assertEquals(pet.getId(), manager.findPetById(pet.getId()).getId());
+            Adopter adopter = manager.getAdopterOf(pet);
+            if (pet.getAdopterName() == null) {
+                assertEquals(null, adopter);
+            } else {
+                adoptedCount++;
+                assertNotNull(adopter, "adopted pet without an adopter: " + pet);
+                assertEquals(pet.getAdopterName(), adopter.getName());
+                assertTrue(adopter.getAdoptedPetNames().contains(pet.getSpecies() + ":" + pet.getName()));
+            }
+        }
+        int listed = 0;
+        for (Adopter adopter : manager.getAllAdopters()) {
+            listed += manager.getPetsOf(adopter).size();
+            assertEquals(manager.getPetsOf(adopter).size(), adopter.getAdoptedPetNames().size());
+        }
+        assertEquals(adoptedCount, listed);
+    }
+
+    private Thread start(Runnable task) {
+        Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private void assertNoFailures() {
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError(failures.size() + " thread(s) failed");
+            failures.forEach(error::addSuppressed);
+            fail(error);
+        }
+    }
+
+    private static String key(Pet pet) {
+        return pet.getSpecies() + ":" + pet.getName();
+    }
+}
@@ -0,0 +1,203 @@
+package petshelter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Stored pets are immutable values: an update replaces the record everywhere, and one record backs the
+// indexes and the snapshot alike.
+class ShelterManagerTest {
+    @TempDir
+    File directory;
+
+    private ShelterManager manager;
+
+    @BeforeEach
+    void open() {
+        manager = new ShelterManager(directory, 256, 5, 60_000);
+    }
+
+    @AfterEach
+    void close() {
+        manager.close();
+    }
+
+    @Test
+    void updatesReplaceTheStoredRecord() {
+        Pet draft = new Pet("Dog", "Rex", 3, "Healthy");
+        assertTrue(manager.addPet(draft));
+        assertTrue(draft.isFrozen());
+        assertSame(draft, manager.findPetById(draft.getId()));
+
+        manager.updatePetAge(draft, 7);
+        manager.updatePetHealth(draft, "Recovering");
+        assertEquals(3, draft.getAge());
+        assertEquals("Healthy", draft.getHealthStatus());
+
+        Pet current = manager.findPetByNameAndSpecies("rex", "dog");
+        assertEquals(7, current.getAge());
+        assertEquals("Recovering", current.getHealthStatus());
+        assertEquals(draft.getId(), current.getId());
+        assertTrue(current.isFrozen());
+        assertSame(current, manager.findPetById(current.getId()));
+        assertSame(current, manager.getAllPets().get(0));
+        assertSame(current, manager.filterPetsByAge(7, 7).get(0));
+        assertSame(current, manager.sortPetsByAge().get(0));
+        assertSame(current, manager.filterPetsBySpecies("Dog").get(0));
+        assertSame(current, manager.searchPetsByName("ex").get(0));
+        assertSame(current, manager.queryPets().healthStatus("Recovering").list().get(0));
+        assertTrue(manager.filterPetsByAge(3, 3).isEmpty());
+        assertTrue(manager.verifyStatistics());
+    }
+
+    @Test
+    void adoptionAndReturnReplaceTheStoredRecord() {
+        manager.addPet(new Pet("Cat", "Tom", 2, "Healthy"));
+        manager.addAdopter(new Adopter("Ann", "555-0100"));
+        Pet available = manager.findPetByNameAndSpecies("Tom", "Cat");
+        Adopter ann = manager.findAdopterByName("Ann");
+
+        assertTrue(manager.adoptPet(available, ann));
+        assertNull(available.getAdopterName());
+        Pet adopted = manager.findPetByNameAndSpecies("Tom", "Cat");
+        assertEquals("Ann", adopted.getAdopterName());
+        assertEquals(ann.getId(), adopted.getAdopterId());
+        assertSame(adopted, manager.getPetsOf(ann).get(0));
+        assertSame(adopted, manager.queryPets().adopted(true).list().get(0));
+        assertEquals(List.of("Cat:Tom"), manager.findAdopterByName("Ann").getAdoptedPetNames());
+        assertTrue(ann.getAdoptedPetNames().isEmpty());
+
+        assertTrue(manager.returnPetToShelter(adopted));
+        Pet returned = manager.findPetByNameAndSpecies("Tom", "Cat");
+        assertNull(returned.getAdopterName());
+        assertEquals(0, returned.getAdopterId());
+        assertEquals("Ann", adopted.getAdopterName());
+        assertTrue(manager.getPetsOf(ann).isEmpty());
+        assertTrue(manager.verifyStatistics());
+    }
+
+    @Test
+    void adopterLookupsReturnTheFrozenCopy() {
+        manager.addAdopter(new Adopter("Ann", "555-0100"));
+        Adopter ann = manager.findAdopterByName("ann");
+        assertTrue(ann.isFrozen());
+        assertSame(ann, manager.findAdopterById(ann.getId()));
+        assertSame(ann, manager.searchAdoptersByName("An").get(0));
+        assertSame(ann, manager.searchAdoptersByName("").get(0));
+        assertSame(ann, manager.getAllAdopters().get(0));
+
+        manager.updateAdopterPhone(ann, "555-0199");
+        assertEquals("555-0100", ann.getPhone());
+        Adopter updated = manager.findAdopterByName("Ann");
+        assertEquals("555-0199", updated.getPhone());
+        assertSame(updated, manager.getAllAdopters().get(0));
+
+        manager.addPet(new Pet("Cat", "Tom", 2, "Healthy"));
+        manager.adoptPet(manager.findPetByNameAndSpecies("Tom", "Cat"), updated);
+        assertSame(manager.findAdopterByName("Ann"), manager.getAdopterOf(manager.findPetByNameAndSpecies("Tom", "Cat")));
+    }
+
+    @Test
+    void updatingAnAdopterThatIsNotStoredChangesNothing() {
+        Adopter stranger = new Adopter("Bob", "555-0100");
+        manager.updateAdopterPhone(stranger, "555-0199");
+        assertEquals("555-0100", stranger.getPhone());
+        assertNull(manager.findAdopterByName("Bob"));
+        manager.close();
+
+        manager = new ShelterManager(directory, 256, 5, 60_000);
+        assertTrue(manager.getAllAdopters().isEmpty());
+    }
+
+    @Test
+    void storedPetsReloadWithTheirUpdates() {
+        manager.addPet(new Pet("Dog", "Rex", 3, "Healthy"));
+        manager.addAdopter(new Adopter("Ann", "555-0100"));
+        Pet rex = manager.findPetByNameAndSpecies("Rex", "Dog");
+        manager.updatePetAge(rex, 4);
+        manager.adoptPet(rex, manager.findAdopterByName("Ann"));
+        manager.close();
+
+        manager = new ShelterManager(directory, 256, 5, 60_000);
+        Pet reloaded = manager.findPetByNameAndSpecies("Rex", "Dog");
+        assertEquals(4, reloaded.getAge());
+        assertEquals("Ann", reloaded.getAdopterName());
+        assertEquals(rex.getId(), reloaded.getId());
+        assertTrue(reloaded.isFrozen());
+        assertTrue(manager.verifyStatistics());
+    }
+
+    // Health status is free text: any number of distinct values is stored as typed and survives both the snapshot
+    // and the journal.
+    @Test
+    void storesEveryHealthStatusAndSpeciesAsTyped() {
+        String[] spellings = {"Cat", "cat", "CAT"};
+        for (int i = 0; i < 3000; i++) {
+            assertTrue(manager.addPet(new Pet(spellings[i % 3], "Pet" + i, i % 10, "Status " + i)));
+        }
+        manager.saveData();
+        manager.addPet(new Pet("Cat", "Late", 1, "healthy"));
+        manager.updatePetHealth(manager.findPetByNameAndSpecies("Pet0", "cat"), "recovering, slowly");
+        manager.close();
+
+        manager = new ShelterManager(directory, 256, 5, 60_000);
+        assertEquals(3001, manager.getAllPets().size());
+        assertEquals("recovering, slowly", manager.findPetByNameAndSpecies("Pet0", "Cat").getHealthStatus());
+        assertEquals("Status 2999", manager.findPetByNameAndSpecies("Pet2999", "Cat").getHealthStatus());
+        assertEquals("healthy", manager.findPetByNameAndSpecies("Late", "cat").getHealthStatus());
+        assertEquals("cat", manager.findPetByNameAndSpecies("Pet1", "Cat").getSpecies());
+        assertEquals("CAT", manager.findPetByNameAndSpecies("Pet2", "Cat").getSpecies());
+        assertEquals(1, manager.countPetsBySpecies().size());
+        assertEquals(3001, manager.countPetsBySpecies().get("cat"));
+        assertEquals(3001, manager.getStatistics().getHealthStatusCounts().size());
+        assertTrue(manager.verifyStatistics());
+    }
+
+    // The journal is checked before the change is made, so a write it refuses leaves every view as it was.
+    @Test
+    void aWriteTheJournalRefusesChangesNothing() {
+        manager.addPet(new Pet("Dog", "Rex", 3, "Healthy"));
+        manager.close();
+
+        assertThrows(IllegalStateException.class, () -> manager.addPet(new Pet("Cat", "Tom", 2, "Healthy")));
+        assertThrows(IllegalStateException.class, () -> manager.updatePetAge(manager.findPetByNameAndSpecies("Rex", "Dog"), 4));
+        assertNull(manager.findPetByNameAndSpecies("Tom", "Cat"));
+        assertEquals(1, manager.getAllPets().size());
+        assertEquals(3, manager.findPetByNameAndSpecies("Rex", "Dog").getAge());
+        assertTrue(manager.filterPetsByAge(4, 4).isEmpty());
+        assertTrue(manager.verifyStatistics());
+    }
+
+    // A record stored by one manager is copied into another, so the first one's record keeps its ID.
+    @Test
+    void addingAStoredPetToAnotherManagerCopiesIt() {
+        File otherDirectory = new File(directory, "other");
+        assertTrue(otherDirectory.mkdirs());
+        ShelterManager other = new ShelterManager(otherDirectory, 256, 5, 60_000);
+        try {
+            other.addPet(new Pet("Bird", "Tweety", 1, "Healthy"));
+            other.addPet(new Pet("Dog", "Rex", 3, "Healthy"));
+            manager.addPet(new Pet("Cat", "Tom", 2, "Healthy"));
+            Pet rex = other.findPetByNameAndSpecies("Rex", "Dog");
+            assertTrue(manager.addPet(rex));
+
+            assertEquals(2, rex.getId());
+            Pet copy = manager.findPetByNameAndSpecies("Rex", "Dog");
+            assertTrue(copy != rex);
+            assertEquals(2, copy.getId());
+            assertSame(rex, other.findPetById(2));
+        } finally {
+            other.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package petshelter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SymbolTableTest {
+    @Test
+    void equalStringsShareOneInstanceAndCaseIsKept() {
+        SymbolTable table = new SymbolTable();
+        String dog = table.intern(new String("Dog"));
+        assertSame(dog, table.intern(new String("Dog")));
+        assertEquals("DOG", table.intern("DOG"));
+        assertEquals("dog", table.intern(new String("dog")));
+        assertNotEquals(table.code("Dog"), table.code("dOG"));
+        assertEquals(4, table.size());
+    }
+
+    @Test
+    void acceptsEveryNewValue() {
+        SymbolTable table = new SymbolTable();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, table.code("Status " + i));
+        }
+        assertEquals(7, table.code("Status 7"));
+        assertEquals("Status 9999", table.value(9999));
+        assertEquals(10_000, table.size());
+    }
+}
@@ -0,0 +1,56 @@
+package petshelter.benchmarks;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Parses "--name=value" options; anything else on the command line is rejected.
+final class Arguments {
+    private final Map<String, String> values = new HashMap<>();
+
+    Arguments(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    // Parses "a:3,b:1" into weights in the order given.
+    static Map<String, Integer> parseWeights(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected name:weight but got " + entry);
+            }
+            int weight = Integer.parseInt(entry.substring(colon + 1).trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in " + entry);
+            }
+            weights.put(entry.substring(0, colon).trim(), weight);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,58 @@
+package petshelter.benchmarks;
+
+import petshelter.Adopter;
+import petshelter.Pet;
+import petshelter.ShelterManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+final class Fixtures {
+    static final String[] SPECIES = {"Dog", "Cat", "Rabbit", "Parrot", "Hamster"};
+    static final String[] HEALTH_STATUSES = {"Healthy", "Needs vaccination", "Recovering"};
+    static final int JOURNAL_SYNC_BATCH_SIZE = 1024;
+    static final long JOURNAL_SYNC_INTERVAL_MILLIS = 1000;
+
+    private Fixtures() {
+    }
+
+    static File newDirectory() throws IOException {
+        return Files.createTempDirectory("shelter-bench").toFile();
+    }
+
+    // Autosave is off so a background snapshot never lands inside a measurement.
+    static ShelterManager open(File directory) {
+        return new ShelterManager(directory, JOURNAL_SYNC_BATCH_SIZE, JOURNAL_SYNC_INTERVAL_MILLIS, 0);
+    }
+
+    static String species(int i) {
+        return SPECIES[i % SPECIES.length];
+    }
+
+    static String petName(int i) {
+        return "Pet" + i;
+    }
+
+    // One adopter per ten pets, each adopting every twentieth pet in turn.
+    static void populate(ShelterManager manager, int pets) {
+        for (int i = 0; i < pets; i++) {
+            manager.addPet(new Pet(species(i), petName(i), i % 20, HEALTH_STATUSES[i % HEALTH_STATUSES.length]));
+        }
+        int adopters = Math.max(1, pets / 10);
+        for (int i = 0; i < adopters; i++) {
+            manager.addAdopter(new Adopter("Adopter" + i, "555-" + i));
+        }
+        for (int i = 0; i < pets; i += 20) {
+            manager.adoptPet(manager.findPetByNameAndSpecies(petName(i), species(i)), manager.findAdopterByName("Adopter" + (i / 20 % adopters)));
+        }
+    }
+
+    static void delete(File directory) throws IOException {
+        try (Stream<java.nio.file.Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package petshelter.benchmarks;
+
+import petshelter.Adopter;
+import petshelter.Pet;
+import petshelter.ShelterManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+// Replays a weighted mix of ShelterManager operations from several threads against a generated shelter and
+// reports throughput and latency percentiles. Each thread draws its operations from its own generator split
+// off the seed, so every run issues the same operations; only their interleaving differs.
+public class LoadDriver {
+    static final String DEFAULT_MIX = "find:40,filter-species:10,filter-age:10,search:10,add:10,update:10,adopt:5,remove:5";
+
+    enum Operation {
+        FIND("find"),
+        FILTER_SPECIES("filter-species"),
+        FILTER_AGE("filter-age"),
+        SEARCH("search"),
+        ADD("add"),
+        UPDATE("update"),
+        ADOPT("adopt"),
+        REMOVE("remove");
+
+        final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        static Operation forLabel(String label) {
+            for (Operation operation : values()) {
+                if (operation.label.equals(label)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation " + label);
+        }
+    }
+
+    private static final String[] HEALTH_STATUSES = {"Healthy", "Needs vaccination", "Recovering"};
+
+    private final ShelterManager manager;
+    private final Pet[] pets;
+    private final Adopter[] adopters;
+    private final String[] species;
+    private final Operation[] operations;
+    private final int[] weights;
+
+    LoadDriver(ShelterManager manager, Map<String, Integer> mix) {
+        this.manager = manager;
+        this.pets = manager.getAllPets().toArray(new Pet[0]);
+        this.adopters = manager.getAllAdopters().toArray(new Adopter[0]);
+        this.species = manager.getUniqueSpecies().toArray(new String[0]);
+        this.operations = new Operation[mix.size()];
+        this.weights = new int[mix.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            operations[i] = Operation.forLabel(entry.getKey());
+            weights[i] = entry.getValue();
+            i++;
+        }
+        if (pets.length == 0 || adopters.length == 0) {
+            throw new IllegalArgumentException("The load driver needs at least one pet and one adopter");
+        }
+    }
+
+    // Per-thread record of what ran and how long each call took, in nanoseconds.
+    static final class Samples {
+        final Operation[] operations;
+        final long[] latencies;
+
+        Samples(int count) {
+            operations = new Operation[count];
+            latencies = new long[count];
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final int index;
+        private final SplittableRandom random;
+        private final int warmupCount;
+        private final Samples samples;
+        private final CyclicBarrier start;
+        private final ArrayDeque<Pet> added = new ArrayDeque<>();
+        private int addedCount;
+
+        Worker(int index, SplittableRandom random, int warmupCount, int operationCount, CyclicBarrier start) {
+            this.index = index;
+            this.random = random;
+            this.warmupCount = warmupCount;
+            this.samples = new Samples(operationCount);
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < warmupCount; i++) {
+                execute(nextOperation());
+            }
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (BrokenBarrierException e) {
+                return;
+            }
+            for (int i = 0; i < samples.latencies.length; i++) {
+                Operation operation = nextOperation();
+                long begin = System.nanoTime();
+                execute(operation);
+                samples.latencies[i] = System.nanoTime() - begin;
+                samples.operations[i] = operation;
+            }
+        }
+
+        private Operation nextOperation() {
+            int total = 0;
+            for (int weight : weights) {
+                total += weight;
+            }
+            int roll = random.nextInt(total);
+            for (int i = 0; i < weights.length; i++) {
+                roll -= weights[i];
+                if (roll < 0) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException("All operation weights are zero");
+        }
+
+        private Object execute(Operation operation) {
+            Pet pet = pets[random.nextInt(pets.length)];
+            switch (operation) {
+                case FIND:
+                    return manager.findPetByNameAndSpecies(pet.getName(), pet.getSpecies());
+                case FILTER_SPECIES:
+                    return manager.filterPetsBySpecies(species[random.nextInt(species.length)]);
+                case FILTER_AGE:
+                    int minAge = random.nextInt(20);
+                    return manager.filterPetsByAge(minAge, minAge + 2);
+                case SEARCH:
+                    return manager.searchPetsByName(pet.getName().substring(0, Math.min(3, pet.getName().length())));
+                case ADD:
+                    Pet newPet = new Pet(pet.getSpecies(), "Load " + index + "-" + addedCount++, random.nextInt(20), "Healthy");
+                    added.add(newPet);
+                    return manager.addPet(newPet);
+                case UPDATE:
+                    manager.updatePetHealth(pet, HEALTH_STATUSES[random.nextInt(HEALTH_STATUSES.length)]);
+                    return null;
+                case ADOPT: {
+                    // Updates replace the stored record, so the adoption state comes from the current one.
+                    Pet current = manager.findPetByNameAndSpecies(pet.getName(), pet.getSpecies());
+                    Adopter adopter = adopters[random.nextInt(adopters.length)];
+                    return current.getAdopterName() == null ? manager.adoptPet(current, adopter) : manager.returnPetToShelter(current);
+                }
+                case REMOVE:
+                    // Only removes pets this thread added, so the shared pool stays valid for the other threads.
+                    Pet oldest = added.poll();
+                    return oldest != null && manager.removePet(oldest);
+                default:
+                    throw new IllegalStateException("Unhandled operation " + operation);
+            }
+        }
+    }
+
+    List<Samples> run(int threads, int warmupCount, int operationCount, long seed) throws InterruptedException {
+        SplittableRandom root = new SplittableRandom(seed);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> running = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(i, root.split(), warmupCount, operationCount, start);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "load-" + i);
+            running.add(thread);
+            thread.start();
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+        List<Samples> samples = new ArrayList<>();
+        for (Worker worker : workers) {
+            samples.add(worker.samples);
+        }
+        return samples;
+    }
+
+    static void report(List<Samples> samples, long elapsedNanos) {
+        int total = 0;
+        for (Samples threadSamples : samples) {
+            total += threadSamples.latencies.length;
+        }
+        System.out.printf("%d operations in %.2f s: %.0f ops/s%n", total, elapsedNanos / 1e9, total / (elapsedNanos / 1e9));
+        System.out.printf("%-16s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 us", "p99 us", "p999 us", "max us");
+        for (Operation operation : Operation.values()) {
+            printRow(operation.label, latencies(samples, operation));
+        }
+        printRow("all", latencies(samples, null));
+    }
+
+    private static long[] latencies(List<Samples> samples, Operation operation) {
+        long[] result = new long[16];
+        int count = 0;
+        for (Samples threadSamples : samples) {
+            for (int i = 0; i < threadSamples.latencies.length; i++) {
+                if (operation == null || threadSamples.operations[i] == operation) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = threadSamples.latencies[i];
+                }
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static void printRow(String label, long[] sorted) {
+        if (sorted.length == 0) {
+            return;
+        }
+        System.out.printf("%-16s %10d %10.1f %10.1f %10.1f %10.1f%n", label, sorted.length,
+                percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3, percentile(sorted, 0.999) / 1e3,
+                sorted[sorted.length - 1] / 1e3);
+    }
+
+    // Nearest-rank percentile of an ascending array.
+    static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    // Usage: LoadDriver [--threads=N] [--operations=N per thread] [--warmup=N per thread] [--mix=find:40,add:10,...]
+    //        [--autosave=MILLIS] [--seed=N] [--metrics=true] plus any ShelterDataGenerator option for the initial shelter.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Arguments arguments = new Arguments(args);
+        int threads = arguments.getInt("threads", Runtime.getRuntime().availableProcessors());
+        int operationCount = arguments.getInt("operations", 100_000);
+        int warmupCount = arguments.getInt("warmup", 20_000);
+        long seed = arguments.getLong("seed", 42);
+        Map<String, Integer> mix = Arguments.parseWeights(arguments.get("mix", DEFAULT_MIX));
+
+        File directory = Fixtures.newDirectory();
+        ShelterManager manager = new ShelterManager(directory, Fixtures.JOURNAL_SYNC_BATCH_SIZE,
+                Fixtures.JOURNAL_SYNC_INTERVAL_MILLIS, arguments.getLong("autosave", 0));
+        try {
+            ShelterDataGenerator.fromArguments(arguments).populate(manager);
+            LoadDriver driver = new LoadDriver(manager, mix);
+            System.out.printf("%d pets, %d adopters, %d threads, seed %d, mix %s%n",
+                    driver.pets.length, driver.adopters.length, threads, seed, mix);
+            long start = System.nanoTime();
+            List<Samples> samples = driver.run(threads, warmupCount, operationCount, seed);
+            report(samples, System.nanoTime() - start);
+            if (Boolean.parseBoolean(arguments.get("metrics", "false"))) {
+                System.out.print(manager.getMetrics().dump());
+            }
+        } finally {
+            manager.close();
+            Fixtures.delete(directory);
+        }
+    }
+}
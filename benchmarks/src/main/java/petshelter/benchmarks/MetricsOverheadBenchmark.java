@@ -0,0 +1,72 @@
+package petshelter.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import petshelter.Adopter;
+import petshelter.Pet;
+import petshelter.ShelterManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares the point lookups with metrics on and off; the difference is the instrumentation cost on the hot path.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+    private static final int SIZE = 100_000;
+
+    @Param({"true", "false"})
+    boolean metrics;
+
+    private File directory;
+    private ShelterManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.newDirectory();
+        manager = Fixtures.open(directory);
+        Fixtures.populate(manager, SIZE);
+        manager.getMetrics().setEnabled(metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public Pet findPetByNameAndSpecies() {
+        int i = ThreadLocalRandom.current().nextInt(SIZE);
+        return manager.findPetByNameAndSpecies(Fixtures.petName(i), Fixtures.species(i));
+    }
+
+    @Benchmark
+    public Pet findPetById() {
+        return manager.findPetById(ThreadLocalRandom.current().nextInt(1, SIZE + 1));
+    }
+
+    @Benchmark
+    public Adopter findAdopterByName() {
+        return manager.findAdopterByName("Adopter" + ThreadLocalRandom.current().nextInt(SIZE / 10));
+    }
+}
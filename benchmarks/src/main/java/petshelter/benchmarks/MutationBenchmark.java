@@ -0,0 +1,74 @@
+package petshelter.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import petshelter.Adopter;
+import petshelter.Pet;
+import petshelter.ShelterManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Every mutation is journaled, so these include the cost of appending the record.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MutationBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private File directory;
+    private ShelterManager manager;
+    private int added;
+    private Pet pet;
+    private Adopter adopter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.newDirectory();
+        manager = Fixtures.open(directory);
+        Fixtures.populate(manager, size);
+        added = size;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+        Fixtures.delete(directory);
+    }
+
+    // A fresh pet and adopter per iteration: pet 1 is never adopted by the fixtures.
+    @Setup(Level.Iteration)
+    public void pickPet() {
+        pet = manager.findPetByNameAndSpecies(Fixtures.petName(1), Fixtures.species(1));
+    }
+
+    @Benchmark
+    public boolean addPet() {
+        int i = added++;
+        return manager.addPet(new Pet(Fixtures.species(i), Fixtures.petName(i), i % 20, "Healthy"));
+    }
+
+    @Benchmark
+    public boolean adoptAndRemoveAdopter() {
+        adopter = new Adopter("Benchmark adopter", "555-0000");
+        manager.addAdopter(adopter);
+        manager.adoptPet(pet, adopter);
+        return manager.removeAdopter(adopter);
+    }
+}
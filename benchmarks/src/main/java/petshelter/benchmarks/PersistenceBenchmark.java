@@ -0,0 +1,100 @@
+package petshelter.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import petshelter.CsvLoader;
+import petshelter.ShelterManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Each call touches the whole data set, so these are timed one call at a time.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private File directory;
+    private File petsFile;
+    private File adoptersFile;
+    private ShelterManager manager;
+    private File snapshotDirectory;
+    private File importDirectory;
+    private ShelterManager importTarget;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.newDirectory();
+        manager = Fixtures.open(directory);
+        Fixtures.populate(manager, size);
+        manager.saveData();
+        petsFile = new File(directory, "export-pets.csv");
+        adoptersFile = new File(directory, "export-adopters.csv");
+        manager.exportCsv(petsFile, adoptersFile);
+
+        // The journal locks its directory, so loadSnapshot reopens one that no open manager holds.
+        snapshotDirectory = Fixtures.newDirectory();
+        ShelterManager saved = Fixtures.open(snapshotDirectory);
+        Fixtures.populate(saved, size);
+        saved.saveData();
+        saved.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+        Fixtures.delete(directory);
+        Fixtures.delete(snapshotDirectory);
+    }
+
+    @Setup(Level.Iteration)
+    public void openImportTarget() throws IOException {
+        importDirectory = Fixtures.newDirectory();
+        importTarget = Fixtures.open(importDirectory);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeImportTarget() throws IOException {
+        importTarget.close();
+        Fixtures.delete(importDirectory);
+    }
+
+    @Benchmark
+    public void saveData() {
+        manager.saveData();
+    }
+
+    // Opening a directory reads the binary snapshot and replays the (empty) journal tail.
+    @Benchmark
+    public int loadSnapshot() {
+        ShelterManager reopened = Fixtures.open(snapshotDirectory);
+        try {
+            return reopened.getStatistics().getPetCount();
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Benchmark
+    public List<CsvLoader.ParseError> importCsv() {
+        return importTarget.importCsv(petsFile, adoptersFile);
+    }
+}
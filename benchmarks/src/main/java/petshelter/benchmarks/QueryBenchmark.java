@@ -0,0 +1,73 @@
+package petshelter.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import petshelter.Pet;
+import petshelter.ShelterManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private File directory;
+    private ShelterManager manager;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.newDirectory();
+        manager = Fixtures.open(directory);
+        Fixtures.populate(manager, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+        Fixtures.delete(directory);
+    }
+
+    // Walks the pets in a fixed stride so lookups do not keep hitting the same cache lines.
+    @Benchmark
+    public Pet findPetByNameAndSpecies() {
+        int i = next;
+        next = (next + 7919) % size;
+        return manager.findPetByNameAndSpecies(Fixtures.petName(i), Fixtures.species(i));
+    }
+
+    @Benchmark
+    public List<Pet> filterPetsBySpecies() {
+        return manager.filterPetsBySpecies("Cat");
+    }
+
+    @Benchmark
+    public List<Pet> filterPetsByAge() {
+        return manager.filterPetsByAge(3, 5);
+    }
+
+    @Benchmark
+    public List<Pet> sortPetsByAge() {
+        return manager.sortPetsByAge();
+    }
+}
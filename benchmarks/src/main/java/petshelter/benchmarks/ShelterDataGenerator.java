@@ -0,0 +1,129 @@
+package petshelter.benchmarks;
+
+import petshelter.Adopter;
+import petshelter.Pet;
+import petshelter.ShelterManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Builds a synthetic shelter through ShelterManager itself, so the files it leaves behind (binary snapshot,
+// journal and the pets.txt/adopters.txt export) are exactly what the application writes. The same seed and
+// settings always produce the same shelter.
+public class ShelterDataGenerator {
+    static final String DEFAULT_SPECIES = "Dog:45,Cat:35,Rabbit:10,Parrot:5,Hamster:5";
+
+    private static final String[] NAMES = {
+            "Bella", "Max", "Luna", "Charlie", "Lucy", "Cooper", "Daisy", "Milo", "Zoe", "Rocky",
+            "Lola", "Buddy", "Sadie", "Bear", "Molly", "Tucker", "Stella", "Oliver", "Bailey", "Leo"
+    };
+    private static final String[] HEALTH_STATUSES = {"Healthy", "Needs vaccination", "Recovering", "Under treatment"};
+    private static final int[] HEALTH_WEIGHTS = {80, 10, 7, 3};
+    private static final String[] SURNAMES = {
+            "Smith", "Johnson", "Garcia", "Novak", "Kowalski", "Muller", "Rossi", "Tanaka", "Silva", "Dubois"
+    };
+
+    private final int petCount;
+    private final int adopterCount;
+    private final String[] species;
+    private final int[] speciesWeights;
+    private final int maxAge;
+    private final double ageSkew;
+    private final double adoptionRatio;
+    private final long seed;
+
+    // ageSkew above 1 favours young animals, below 1 old ones; adoptionRatio is the share of pets given an adopter.
+    public ShelterDataGenerator(int petCount, int adopterCount, Map<String, Integer> speciesWeights,
+                                int maxAge, double ageSkew, double adoptionRatio, long seed) {
+        if (petCount < 0 || adopterCount < 0 || maxAge < 0 || ageSkew <= 0 || adoptionRatio < 0 || adoptionRatio > 1) {
+            throw new IllegalArgumentException("Invalid generator settings");
+        }
+        if (speciesWeights.isEmpty()) {
+            throw new IllegalArgumentException("At least one species is required");
+        }
+        this.petCount = petCount;
+        this.adopterCount = adopterCount;
+        this.species = speciesWeights.keySet().toArray(new String[0]);
+        this.speciesWeights = speciesWeights.values().stream().mapToInt(Integer::intValue).toArray();
+        this.maxAge = maxAge;
+        this.ageSkew = ageSkew;
+        this.adoptionRatio = adoptionRatio;
+        this.seed = seed;
+    }
+
+    static ShelterDataGenerator fromArguments(Arguments arguments) {
+        int pets = arguments.getInt("pets", 10_000);
+        return new ShelterDataGenerator(
+                pets,
+                arguments.getInt("adopters", Math.max(1, pets / 10)),
+                Arguments.parseWeights(arguments.get("species", DEFAULT_SPECIES)),
+                arguments.getInt("max-age", 20),
+                arguments.getDouble("age-skew", 2.0),
+                arguments.getDouble("adoption-ratio", 0.3),
+                arguments.getLong("seed", 42));
+    }
+
+    // Adds the generated adopters and pets to manager; names carry the record number so every key is unique.
+    public void populate(ShelterManager manager) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Adopter[] adopters = new Adopter[adopterCount];
+        for (int i = 0; i < adopterCount; i++) {
+            adopters[i] = new Adopter(NAMES[random.nextInt(NAMES.length)] + " " + SURNAMES[random.nextInt(SURNAMES.length)] + " " + i,
+                    String.format("555-%07d", random.nextInt(10_000_000)));
+            manager.addAdopter(adopters[i]);
+        }
+        for (int i = 0; i < petCount; i++) {
+            Pet pet = new Pet(species[pick(random, speciesWeights)], NAMES[random.nextInt(NAMES.length)] + " " + i,
+                    (int) (Math.pow(random.nextDouble(), ageSkew) * (maxAge + 1)),
+                    HEALTH_STATUSES[pick(random, HEALTH_WEIGHTS)]);
+            manager.addPet(pet);
+            if (adopterCount > 0 && random.nextDouble() < adoptionRatio) {
+                manager.adoptPet(pet, adopters[random.nextInt(adopterCount)]);
+            }
+        }
+    }
+
+    private static int pick(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("All weights are zero");
+    }
+
+    // Usage: ShelterDataGenerator --out=DIR [--pets=N] [--adopters=N] [--species=Dog:45,Cat:35,...]
+    //        [--max-age=N] [--age-skew=X] [--adoption-ratio=X] [--seed=N]
+    public static void main(String[] args) throws IOException {
+        Arguments arguments = new Arguments(args);
+        File directory = new File(arguments.get("out", "generated-shelter"));
+        String[] existing = directory.list();
+        if (existing != null && existing.length > 0) {
+            System.err.println("Refusing to generate into non-empty directory " + directory);
+            System.exit(1);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        ShelterDataGenerator generator = fromArguments(arguments);
+        long start = System.nanoTime();
+        ShelterManager manager = new ShelterManager(directory, Fixtures.JOURNAL_SYNC_BATCH_SIZE, Fixtures.JOURNAL_SYNC_INTERVAL_MILLIS, 0);
+        try {
+            generator.populate(manager);
+            manager.saveData();
+            manager.exportCsv(new File(directory, "pets.txt"), new File(directory, "adopters.txt"));
+        } finally {
+            manager.close();
+        }
+        System.out.printf("Generated %d pets and %d adopters in %s (%d ms)%n", generator.petCount, generator.adopterCount,
+                directory, (System.nanoTime() - start) / 1_000_000);
+    }
+}